@@ -19,8 +19,14 @@
  */
 package dev.stemcraft.api.services;
 
+import dev.stemcraft.api.services.playerlog.PlayerLogQuery;
+import dev.stemcraft.api.services.playerlog.PlayerLogRecord;
+import dev.stemcraft.api.services.playerlog.PlayerLogStatistics;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface PlayerLogService extends STEMCraftService {
 
     /**
@@ -32,4 +38,15 @@ public interface PlayerLogService extends STEMCraftService {
      * Log a server action.
      */
     default void logServerAction(String action, String... placeholders) { logPlayerAction(null, action, placeholders); }
+
+    /**
+     * Get the enqueued, dropped and written counters of the log pipeline.
+     */
+    PlayerLogStatistics getStatistics();
+
+    /**
+     * Search the player logs of all players. The search runs off the main thread and the
+     * results are ordered newest first, up to the query limit.
+     */
+    CompletableFuture<List<PlayerLogRecord>> query(PlayerLogQuery query);
 }
@@ -20,6 +20,12 @@
 package dev.stemcraft.api.services;
 
 import dev.stemcraft.api.factories.ChunkGeneratorFactory;
+import dev.stemcraft.api.services.world.WorldFileTask;
+import dev.stemcraft.api.services.world.WorldPool;
+import dev.stemcraft.api.services.world.WorldRollback;
+import dev.stemcraft.api.services.world.WorldSnapshot;
+import dev.stemcraft.api.utils.SCRegion;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
@@ -29,6 +35,7 @@ import org.bukkit.generator.ChunkGenerator;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface WorldService extends STEMCraftService {
     boolean worldExists(String worldName);
@@ -45,12 +52,58 @@ public interface WorldService extends STEMCraftService {
 
     World createWorld(String worldName, String generatorName, String generatorOptions);
 
+    /**
+     * Delete an unloaded world. The folder is moved out of the way at once, so the name can be
+     * reused straight away, and its files are removed in the background.
+     */
     void deleteWorld(String worldName) throws Exception;
 
+    /**
+     * Delete an unloaded world, as {@link #deleteWorld(String)}, returning the background
+     * removal of its files. Files that cannot be removed are retried, then left for the next
+     * start, and the task fails.
+     */
+    WorldFileTask deleteWorldAsync(String worldName);
+
     void renameWorld(String oldName, String newName) throws Exception;
 
     void duplicateWorld(String sourceWorldName, String targetWorldName) throws Exception;
 
+    /**
+     * Copy an unloaded world folder in the background, leaving nothing behind if it fails.
+     */
+    WorldFileTask duplicateWorldAsync(String sourceWorldName, String targetWorldName);
+
+    /**
+     * Take a snapshot of a world, loaded or not. A loaded world is saved first and autosave is
+     * held off until the files are stored. Only files changed since the world's last snapshot
+     * are copied, and identical files are stored once across every snapshot.
+     */
+    CompletableFuture<WorldSnapshot> snapshotWorld(String worldName);
+
+    /**
+     * Returns the snapshots of a world, oldest first. Throws an IllegalArgumentException if the
+     * name is not a plain world folder name.
+     */
+    List<WorldSnapshot> listSnapshots(String worldName);
+
+    /**
+     * Restore a snapshot as a new world. The target must not exist.
+     */
+    WorldFileTask restoreSnapshot(String worldName, String snapshotId, String targetWorldName);
+
+    /**
+     * Start keeping copies of a template world ready to hand out. Returns the existing pool if
+     * the template already has one.
+     */
+    WorldPool createWorldPool(String templateWorldName, int size, boolean preload);
+
+    /**
+     * Returns the pool for a template world, if any. Pools listed under world_pools in the
+     * config are created on enable.
+     */
+    Optional<WorldPool> getWorldPool(String templateWorldName);
+
     List<String> listWorlds();
 
     Path getWorldFolder(String worldName);
@@ -64,20 +117,64 @@ public interface WorldService extends STEMCraftService {
      */
     boolean isCapturing(World world);
 
+    /**
+     * Returns true if changes at this location are currently being captured.
+     */
+    boolean isCapturing(Location location);
+
+    /**
+     * Returns the regions capture in the given world is limited to, or an empty list if it
+     * covers the whole world or is not capturing.
+     */
+    List<SCRegion> getCaptureRegions(World world);
+
     /**
      * Begin capturing all changes in the given world.
      */
     void captureStart(World world);
 
+    /**
+     * Begin capturing changes inside the regions, or the whole world if the list is empty. If
+     * the world is already capturing, capture continues limited to the new regions.
+     */
+    void captureStart(World world, List<SCRegion> regions);
+
     /**
      * Stop capturing and discard all captured changes.
      */
     void captureStop(World world);
 
     /**
-     * Roll back all captured changes in the given world and stop capturing.
+     * Roll back all captured changes in the given world. Blocks are restored a chunk at a time
+     * within a per tick budget; the future completes with the number restored, or is cancelled if
+     * the rollback is. Capture is paused while blocks are restored and then resumes. If a rollback
+     * is already running its future is returned.
+     */
+    CompletableFuture<Integer> captureRollback(World world);
+
+    /**
+     * Roll back the changes made since the named checkpoint, dropping the checkpoints after it.
+     * Capture is paused while blocks are restored and then resumes from the checkpoint. The
+     * future fails with an IllegalArgumentException if there is no such checkpoint.
+     */
+    CompletableFuture<Integer> captureRollback(World world, String checkpoint);
+
+    /**
+     * Mark a checkpoint that capture can later be rolled back to. Only the blocks changed after
+     * it are stored again. Returns false if the world is not capturing or the name is taken.
+     */
+    boolean captureCheckpoint(World world, String name);
+
+    /**
+     * Returns the checkpoints of the capture in the given world, oldest first. The first is
+     * always "start", the state when capture began.
+     */
+    List<String> getCaptureCheckpoints(World world);
+
+    /**
+     * Returns the rollback running in the given world, if any.
      */
-    void captureRollback(World world);
+    Optional<WorldRollback> getRollback(World world);
 
     /**
      * Clear all captured changes without stopping capture.
@@ -0,0 +1,104 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.playerlog;
+
+import java.util.Locale;
+
+/**
+ * The type of action recorded in a player log entry.
+ */
+public enum PlayerLogAction {
+    CHAT("CHAT"),
+    COMMAND("COMMAND"),
+    JOIN("JOIN"),
+    LEAVE("LEAVE"),
+    KICK("KICK"),
+    REGISTER("REGISTER"),
+    SIGN("SIGN"),
+    TELEPORT("TELEPORT"),
+    DEATH("DEATH"),
+    LEVEL("LEVEL"),
+    GAMEMODE("GAMEMODE"),
+    BLOCK_PLACE("BLOCK PLACE"),
+    BLOCK_BREAK("BLOCK BREAK"),
+    BUCKET_FILL("BUCKET FILL"),
+    BUCKET_EMPTY("BUCKET EMPTY"),
+    ITEM_PICKUP("ITEM PICKUP"),
+    ITEM_DROP("ITEM DROP"),
+    ENCHANT("ENCHANT"),
+    BOOK_EDIT("BOOK EDIT"),
+    FURNACE("FURNACE"),
+    CRAFT("CRAFT"),
+    ENTITY_DEATH("ENTITY DEATH"),
+    PRIMED_TNT("PRIMED TNT"),
+    CHEST_OPEN("CHEST OPEN"),
+    COMMAND_BLOCK("COMMAND BLOCK"),
+    CONSOLE_COMMAND("CONSOLE COMMAND"),
+    RCON_COMMAND("RCON COMMAND"),
+    PORTAL_CREATE("PORTAL CREATE"),
+    TPS_WARNING("TPS WARNING"),
+    MEMORY_WARNING("MEMORY WARNING"),
+    CUSTOM("CUSTOM");
+
+    private final String label;
+
+    PlayerLogAction(String label) {
+        this.label = label;
+    }
+
+    /**
+     * The label written at the start of the log message, ie "BLOCK BREAK"
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Find the action by name or label, ignoring case. Returns null if not found.
+     */
+    public static PlayerLogAction fromString(String value) {
+        if (value == null) return null;
+
+        String normalised = value.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+        for (PlayerLogAction action : values()) {
+            if (action.name().equals(normalised)) return action;
+        }
+
+        return null;
+    }
+
+    /**
+     * Work out the action from the start of a log message, falling back to CUSTOM.
+     */
+    public static PlayerLogAction fromMessage(String message) {
+        if (message == null) return CUSTOM;
+
+        PlayerLogAction best = CUSTOM;
+        for (PlayerLogAction action : values()) {
+            if (action != CUSTOM && message.startsWith(action.label)
+                    && (message.length() == action.label.length() || !Character.isLetter(message.charAt(action.label.length())))
+                    && action.label.length() > (best == CUSTOM ? 0 : best.label.length())) {
+                best = action;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.playerlog;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Filters for searching the player log. Unset filters match everything.
+ */
+@Getter
+public class PlayerLogQuery {
+    private final Set<String> players = new HashSet<>();
+    private final EnumSet<PlayerLogAction> actions = EnumSet.noneOf(PlayerLogAction.class);
+    private Instant from = null;
+    private Instant to = null;
+    private String world = null;
+    private boolean boxed = false;
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    private int limit = 1000;
+
+    /**
+     * Only include entries from this player. Can be called multiple times.
+     */
+    public PlayerLogQuery player(String name) {
+        players.add(name.toLowerCase(Locale.ROOT));
+        return this;
+    }
+
+    /**
+     * Only include entries of this action type. Can be called multiple times.
+     */
+    public PlayerLogQuery action(PlayerLogAction action) {
+        actions.add(action);
+        return this;
+    }
+
+    /**
+     * Only include entries between the two times. Either may be null for an open range.
+     */
+    public PlayerLogQuery between(Instant from, Instant to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Only include entries newer than this time.
+     */
+    public PlayerLogQuery since(Instant from) {
+        return between(from, null);
+    }
+
+    /**
+     * Only include entries in this world.
+     */
+    public PlayerLogQuery world(String world) {
+        this.world = world;
+        return this;
+    }
+
+    /**
+     * Only include entries within the block coordinate box (inclusive).
+     */
+    public PlayerLogQuery box(int x1, int y1, int z1, int x2, int y2, int z2) {
+        this.boxed = true;
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+        return this;
+    }
+
+    /**
+     * The maximum number of results, newest first.
+     */
+    public PlayerLogQuery limit(int limit) {
+        this.limit = Math.max(1, limit);
+        return this;
+    }
+
+    /**
+     * Returns true if the query restricts results by location.
+     */
+    public boolean hasLocationFilter() {
+        return world != null || boxed;
+    }
+
+    /**
+     * Test a record against every filter in the query.
+     */
+    public boolean matches(PlayerLogRecord record) {
+        return matches(record.playerName(), record.action(), record.timestamp().toEpochMilli(),
+                record.world(), record.x(), record.y(), record.z());
+    }
+
+    /**
+     * Test the fields of an entry against every filter in the query. World is null for entries without a location.
+     */
+    public boolean matches(String playerName, PlayerLogAction action, long epochMillis, String world, int x, int y, int z) {
+        if (!players.isEmpty() && !players.contains(playerName.toLowerCase(Locale.ROOT))) return false;
+        if (!actions.isEmpty() && !actions.contains(action)) return false;
+        if (from != null && epochMillis < from.toEpochMilli()) return false;
+        if (to != null && epochMillis > to.toEpochMilli()) return false;
+
+        if (hasLocationFilter()) {
+            if (world == null) return false;
+            if (this.world != null && !this.world.equalsIgnoreCase(world)) return false;
+            if (boxed && (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)) return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.playerlog;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A single entry from the player log.
+ *
+ * @param timestamp  When the action happened
+ * @param playerId   The player UUID, or the nil UUID for server actions
+ * @param playerName The player name, or _SERVER_ for server actions
+ * @param action     The action type
+ * @param world      The world the action happened in, or null if the action has no location
+ * @param x          Block x coordinate
+ * @param y          Block y coordinate
+ * @param z          Block z coordinate
+ * @param message    The log message
+ */
+public record PlayerLogRecord(Instant timestamp, UUID playerId, String playerName, PlayerLogAction action,
+                              String world, int x, int y, int z, String message) {
+
+    public boolean hasLocation() {
+        return world != null;
+    }
+}
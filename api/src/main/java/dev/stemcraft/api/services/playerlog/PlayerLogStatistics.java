@@ -0,0 +1,32 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.playerlog;
+
+/**
+ * Counters from the player log pipeline.
+ *
+ * @param enqueued Entries accepted into the queue
+ * @param dropped  Entries discarded by the backpressure policy or a failed write
+ * @param written  Entries written to disk
+ * @param queued   Entries currently waiting in the queue
+ * @param capacity Maximum number of entries the queue can hold
+ * @param limited  Entries sampled out, rate limited or merged into a coalesced entry
+ */
+public record PlayerLogStatistics(long enqueued, long dropped, long written, int queued, int capacity, long limited) { }
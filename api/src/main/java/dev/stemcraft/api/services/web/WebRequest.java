@@ -0,0 +1,72 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request matched to a route.
+ */
+public interface WebRequest {
+    /**
+     * The request method in upper case, such as GET or POST.
+     */
+    String getMethod();
+
+    /**
+     * The decoded request path.
+     */
+    String getPath();
+
+    /**
+     * Returns the segment captured by a {name} in the route pattern, or null if there is none.
+     */
+    String getPathParameter(String name);
+
+    Map<String, String> getPathParameters();
+
+    /**
+     * The query string parameters, repeated keys are joined with a comma.
+     */
+    Map<String, String> getQueryParameters();
+
+    /**
+     * Returns the first value of a request header, ignoring case, or null if it was not sent.
+     */
+    String getHeader(String name);
+
+    Map<String, List<String>> getHeaders();
+
+    /**
+     * The request body. It can only be read once.
+     */
+    InputStream getBody();
+
+    default String getBodyAsString() throws IOException {
+        return new String(getBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    InetSocketAddress getRemoteAddress();
+}
@@ -0,0 +1,88 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.web;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A response for the web server to send. The body is either bytes or a file; a file is
+ * streamed and supports range requests. Without a content type, JSON looking bodies are sent
+ * as application/json and other bodies as UTF-8 text.
+ */
+@Getter
+public class WebResponse {
+    private int status = 200;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private String contentType;
+    private byte[] body;
+    private File file;
+
+    public static WebResponse ok(String body) {
+        return new WebResponse().setBody(body);
+    }
+
+    public static WebResponse json(String body) {
+        return new WebResponse().setContentType("application/json").setBody(body);
+    }
+
+    public static WebResponse file(File file) {
+        return new WebResponse().setFile(file);
+    }
+
+    public static WebResponse status(int status, String body) {
+        return new WebResponse().setStatus(status).setBody(body);
+    }
+
+    public WebResponse setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    public WebResponse setHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public WebResponse setContentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    public WebResponse setBody(String body) {
+        return setBody(body == null ? null : body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public WebResponse setBody(byte[] body) {
+        this.body = body;
+        this.file = null;
+        return this;
+    }
+
+    public WebResponse setFile(File file) {
+        this.file = file;
+        this.body = null;
+        return this;
+    }
+}
@@ -34,7 +34,19 @@ public interface WebService extends STEMCraftService {
     public void stop();
 
     /**
-     * Register a endpoint handler which is called if the uri starts with the path string
+     * Register a handler for requests with the method whose path matches the pattern, such as
+     * /worlds/{name}/players. A segment in braces captures that segment of the path. Static
+     * segments win over captures, and a method of * accepts any method.
+     */
+    public void registerRoute(String method, String pattern, WebRequestHandler handler);
+
+    /**
+     * Register a endpoint handler which is called for the path and any path below it
      */
     public void registerEndpointHandler(String path, WebServiceEndpointHandler handler);
+
+    /**
+     * Register a Server-Sent Events handler which is called for the path and any path below it
+     */
+    public void registerEventStreamHandler(String path, WebServiceEventStreamHandler handler);
 }
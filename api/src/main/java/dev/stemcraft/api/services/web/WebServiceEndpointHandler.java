@@ -22,5 +22,10 @@ package dev.stemcraft.api.services.web;
 import java.io.IOException;
 
 public interface WebServiceEndpointHandler {
+    /**
+     * Handle a request. Return a {@link WebResponse}, a {@code Map} with {@code code} and
+     * {@code body} keys for a custom status, a {@code File} to send the file, or any other object
+     * to send its string value.
+     */
     Object handle(String method, String uri) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.web;
+
+/**
+ * An open Server-Sent Events response. Events are queued and written by the web server, so
+ * sending never blocks the caller.
+ */
+public interface WebServiceEventStream {
+    /**
+     * Queue an event for the client. Returns false if the stream is closed, or the client has
+     * fallen too far behind and was disconnected.
+     */
+    boolean send(String event, String data);
+
+    /**
+     * Returns true until the client disconnects or the stream is closed.
+     */
+    boolean isOpen();
+
+    /**
+     * Close the stream and disconnect the client.
+     */
+    void close();
+}
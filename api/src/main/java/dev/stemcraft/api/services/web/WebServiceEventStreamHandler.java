@@ -0,0 +1,32 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.web;
+
+import java.util.Map;
+
+public interface WebServiceEventStreamHandler {
+    /**
+     * Called when a client opens an event stream. Keep the stream to send events to it later.
+     * Return false to refuse the client with 403 Forbidden.
+     *
+     * @param parameters The query string parameters, repeated keys are joined with a comma
+     */
+    boolean open(String uri, Map<String, String> parameters, WebServiceEventStream stream);
+}
@@ -0,0 +1,50 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.world;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A copy, delete or snapshot of a world folder running in the background.
+ */
+public interface WorldFileTask {
+    /**
+     * The world the task is writing or removing.
+     */
+    String getWorldName();
+
+    /**
+     * Total bytes the task will process, which may grow until the folder has been scanned.
+     */
+    long getTotalBytes();
+
+    long getCompletedBytes();
+
+    default double getProgress() {
+        long total = getTotalBytes();
+        return total == 0 ? (future().isDone() ? 1.0 : 0.0) : Math.min(1.0, (double) getCompletedBytes() / total);
+    }
+
+    /**
+     * Completes when the task has finished, or fails with the error that stopped it. Cancelling
+     * it stops the task at the next file.
+     */
+    CompletableFuture<Void> future();
+}
@@ -0,0 +1,72 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.world;
+
+import org.bukkit.World;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Copies of a template world kept ready to hand out, so players are not left waiting on a
+ * duplicate and load. The template must stay unloaded while the pool is copying it.
+ */
+public interface WorldPool {
+    /**
+     * The world the pool copies.
+     */
+    String getTemplate();
+
+    /**
+     * Number of copies the pool keeps ready.
+     */
+    int getSize();
+
+    /**
+     * Number of copies ready to hand out right now.
+     */
+    int getReady();
+
+    /**
+     * Returns true if ready copies are loaded as well as duplicated.
+     */
+    boolean isPreloaded();
+
+    /**
+     * Take a copy of the template, loaded. Completes on the main thread straight away if a copy
+     * is ready, otherwise once the next copy is, and fails if the template could not be copied.
+     */
+    CompletableFuture<World> acquire();
+
+    /**
+     * Give a copy back. Players still in it are sent to the main world, then it is unloaded and
+     * its folder deleted in the background. The future completes once the folder is gone.
+     */
+    CompletableFuture<Void> release(World world);
+
+    /**
+     * Returns true if the world was handed out by this pool and not yet released.
+     */
+    boolean isLeased(World world);
+
+    /**
+     * Stop refilling and delete the copies not handed out. Leased copies can still be released.
+     */
+    void close();
+}
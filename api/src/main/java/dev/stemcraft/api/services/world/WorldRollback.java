@@ -0,0 +1,61 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.world;
+
+import org.bukkit.World;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A rollback of captured changes that is restoring blocks a few chunks per tick.
+ */
+public interface WorldRollback {
+    World getWorld();
+
+    /**
+     * The checkpoint being rolled back to.
+     */
+    String getCheckpoint();
+
+    /**
+     * Number of blocks to restore when the rollback started.
+     */
+    int getTotal();
+
+    /**
+     * Number of blocks restored so far.
+     */
+    int getRestored();
+
+    default double getProgress() {
+        return getTotal() == 0 ? 1.0 : (double) getRestored() / getTotal();
+    }
+
+    /**
+     * Stop the rollback after the current block. Blocks not yet restored stay captured, and a
+     * later rollback carries on from there.
+     */
+    boolean cancel();
+
+    /**
+     * Completes with the number of blocks restored, or is cancelled with the rollback.
+     */
+    CompletableFuture<Integer> future();
+}
@@ -0,0 +1,34 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.api.services.world;
+
+import java.time.Instant;
+
+/**
+ * A stored snapshot of a world folder.
+ *
+ * @param worldName The world the snapshot was taken of
+ * @param id        Identifies the snapshot among the world's snapshots
+ * @param created   When the snapshot was taken
+ * @param files     Number of files in the snapshot
+ * @param bytes     Total size of the files in the snapshot
+ * @param copied    Bytes written to the store for this snapshot, the rest were already held
+ */
+public record WorldSnapshot(String worldName, String id, Instant created, int files, long bytes, long copied) { }
@@ -0,0 +1,23 @@
+package dev.stemcraft.api.utils;
+
+/**
+ * Block positions packed into one long as x (26 bits), z (26 bits), y (12 bits), which covers
+ * the whole world border and build height. Used wherever positions are stored in bulk.
+ */
+public class SCPosition extends STEMCraftUtil {
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFFL);
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+}
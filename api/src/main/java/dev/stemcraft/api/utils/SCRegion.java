@@ -47,6 +47,17 @@ public class SCRegion {
         return region.contains(pos);
     }
 
+    public boolean contains(int x, int y, int z) {
+        return region.contains(BlockVector3.at(x, y, z));
+    }
+
+    public int getMinX() { return region.getMinimumPoint().x(); }
+    public int getMinY() { return region.getMinimumPoint().y(); }
+    public int getMinZ() { return region.getMinimumPoint().z(); }
+    public int getMaxX() { return region.getMaximumPoint().x(); }
+    public int getMaxY() { return region.getMaximumPoint().y(); }
+    public int getMaxZ() { return region.getMaximumPoint().z(); }
+
     public String serialize() {
         if (region instanceof CuboidRegion cuboid) {
             return serializeCuboid(cuboid);
@@ -125,19 +136,21 @@ public class SCRegion {
     }
 
     private static SCRegion deserializePolygon(String[] parts, World world) {
-        int minY = Integer.parseInt(parts[1]);
-        int maxY = Integer.parseInt(parts[2]);
-        String pointsStr = parts[3];
+        if (parts.length < 4 || parts.length % 2 != 0) {
+            throw new IllegalArgumentException("Invalid polygon data");
+        }
+
+        int minY = Integer.parseInt(parts[0]);
+        int maxY = Integer.parseInt(parts[1]);
 
         if (world == null) return null;
 
         com.sk89q.worldedit.world.World weWorld = BukkitAdapter.adapt(world);
 
         List<BlockVector2> points = new ArrayList<>();
-        for (String token : pointsStr.split(",")) {
-            String[] xy = token.split(",");
-            int x = Integer.parseInt(xy[0]);
-            int z = Integer.parseInt(xy[1]);
+        for (int i = 2; i < parts.length; i += 2) {
+            int x = Integer.parseInt(parts[i]);
+            int z = Integer.parseInt(parts[i + 1]);
             points.add(BlockVector2.at(x, z));
         }
 
@@ -267,6 +280,15 @@ public class SCRegion {
         return region instanceof Polygonal2DRegion;
     }
 
+    /**
+     * The x and z of each corner of a polygon region, or an empty list for other regions.
+     */
+    public List<int[]> getPolygonPoints() {
+        if (!(region instanceof Polygonal2DRegion polygon)) return List.of();
+
+        return polygon.getPoints().stream().map(point -> new int[]{point.x(), point.z()}).toList();
+    }
+
     public boolean containsPlayer(Player player) {
         if (player == null) return false;
         return contains(player.getLocation());
@@ -93,11 +93,11 @@ public final class STEMCraft extends JavaPlugin {
         loadUtilities();
 
 
-        // Load managers
+        // Load managers, the web service is created first so others can register handlers
+        webService = new WebManager(this);
         playerLogService = new PlayerLogManager(this);
         worldService = new WorldManager(this);
         motdService = new MOTDManager(this);
-        webService = new WebManager(this);
         tabCompleteService = new TabCompleteManager(this);
 
         playerLogService.onEnable();
@@ -261,6 +261,10 @@ public final class STEMCraft extends JavaPlugin {
         messengerService.warn(message, placeholders);
     }
 
+    public void warn(String message, Throwable ex, String... placeholders) {
+        messengerService.warn(message, ex, placeholders);
+    }
+
     public void error(String message, String... placeholders) {
         messengerService.error(message, placeholders);
     }
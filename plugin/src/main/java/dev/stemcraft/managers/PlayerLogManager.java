@@ -21,11 +21,35 @@ package dev.stemcraft.managers;
 
 import dev.stemcraft.STEMCraft;
 import dev.stemcraft.api.services.PlayerLogService;
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+import dev.stemcraft.api.services.playerlog.PlayerLogQuery;
+import dev.stemcraft.api.services.playerlog.PlayerLogRecord;
+import dev.stemcraft.api.services.playerlog.PlayerLogStatistics;
+import dev.stemcraft.api.services.web.WebRequest;
+import dev.stemcraft.api.services.web.WebResponse;
+import dev.stemcraft.api.services.web.WebServiceEventStream;
+import dev.stemcraft.api.utils.SCChatMenu;
 import dev.stemcraft.api.utils.SCText;
+import dev.stemcraft.api.utils.SCTime;
+import dev.stemcraft.playerlog.PlayerLogEntry;
+import dev.stemcraft.playerlog.PlayerLogExporter;
+import dev.stemcraft.playerlog.PlayerLogJournal;
+import dev.stemcraft.playerlog.PlayerLogLimiter;
+import dev.stemcraft.playerlog.PlayerLogLiveFeed;
+import dev.stemcraft.playerlog.PlayerLogMaterialMatcher;
+import dev.stemcraft.playerlog.PlayerLogPipeline;
+import dev.stemcraft.playerlog.PlayerLogRetention;
+import dev.stemcraft.playerlog.PlayerLogStore;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -54,16 +78,18 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.event.world.PortalCreateEvent;
+import org.bukkit.inventory.ItemStack;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Instant;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 public class PlayerLogManager implements PlayerLogService, Listener {
@@ -72,20 +98,27 @@ public class PlayerLogManager implements PlayerLogService, Listener {
     private int maxDays = 28;
     private int tpsThreshold = 15;
     private long memoryThreshold = 5 * 1024 * 1024; // 50 MB
-    private List<Pattern> trackedPlacePatterns = new ArrayList<>();
-    private List<Pattern> trackedBreakPatterns = new ArrayList<>();
-    private static final UUID SERVER_UUID = new UUID(0L, 0L);
+    private PlayerLogMaterialMatcher trackedPlaceBlocks;
+    private PlayerLogMaterialMatcher trackedBreakBlocks;
 
-    private final Map<UUID, Deque<PlayerLogEntry>> buffers = new ConcurrentHashMap<>();
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+    private static final int LOOKUP_LIMIT = 1000;
+    private static final DateTimeFormatter LOOKUP_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM HH:mm")
             .withZone(ZoneId.systemDefault());
 
+    private PlayerLogStore store;
+    private PlayerLogPipeline pipeline;
+    private volatile PlayerLogRetention retention;
+    private volatile PlayerLogLimiter limiter;
+    private PlayerLogLiveFeed liveFeed;
+    private PlayerLogExporter exporter;
+    private CompletableFuture<PlayerLogExporter.Result> exportJob;
+
     public PlayerLogManager(STEMCraft plugin) {
         this.plugin = plugin;
     }
 
     public void onEnable() {
-        if(!plugin.getConfig().getBoolean("player-log.enabled", true)) {
+        if(!plugin.getConfig().getBoolean("player_logs.enabled", true)) {
             return;
         }
 
@@ -95,13 +128,81 @@ public class PlayerLogManager implements PlayerLogService, Listener {
             return;
         }
 
-        maxDays = plugin.getConfig().getInt("player_log.max-days", 28);
-        tpsThreshold = plugin.getConfig().getInt("player_log.tps_threshold", 15);
-        memoryThreshold = SCText.toBytes(plugin.getConfig().getString("player-log.memory_threshold", "5MB"));
-        trackedPlacePatterns = loadPatterns("player_log.blocks.place");
-        trackedBreakPatterns = loadPatterns("player_log.blocks.break");
+        loadSettings();
+
+        store = new PlayerLogStore(logDirectory);
+        try {
+            int migrated = store.migrateLegacy();
+            if (migrated > 0) {
+                plugin.getLogger().info("[PlayerLog] Migrated " + migrated + " player logs to day segments");
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("[PlayerLog] Failed to migrate legacy player logs: " + e.getMessage());
+        }
+
+        pipeline = new PlayerLogPipeline(
+                store,
+                plugin.getLogger(),
+                plugin.getConfig().getInt("player_logs.queue.capacity", 65536),
+                PlayerLogPipeline.BackpressurePolicy.fromString(
+                        plugin.getConfig().getString("player_logs.queue.policy"),
+                        PlayerLogPipeline.BackpressurePolicy.DROP),
+                plugin.getConfig().getInt("player_logs.queue.sample_rate", 10)
+        );
+        exporter = new PlayerLogExporter(store, new File(plugin.getDataFolder(), "exports"));
+        liveFeed = new PlayerLogLiveFeed();
+        pipeline.setListener(liveFeed::publish);
+        pipeline.setJournal(openJournal());
+        pipeline.start();
+        limiter = new PlayerLogLimiter(loadLimits(), pipeline::submit);
 
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        plugin.webService().registerEventStreamHandler("/playerlog/stream", this::openLiveStream);
+        if (plugin.getConfig().getString("player_logs.stream.token", "").isEmpty()) {
+            plugin.warn("Set player_logs.stream.token to allow web clients to read player logs");
+        }
+        plugin.webService().registerRoute("GET", "/playerlog/export", request -> handleExportRequest(request, false));
+        plugin.webService().registerRoute("POST", "/playerlog/export", request -> handleExportRequest(request, true));
+        plugin.webService().registerRoute("GET", "/playerlog/export/{file}", this::handleExportDownload);
+
+        plugin.registerCommand("playerlog")
+                .addTabCompletion("stats")
+                .addTabCompletion("reload")
+                .addTabCompletion("export")
+                .addTabCompletion("lookup", "p:{player}", "a:{playerlogaction}", "w:{world}")
+                .setUsage("playerlog <stats|reload|export|lookup [p:player] [a:action] [t:time] [r:radius] [w:world] [b:x1,y1,z1,x2,y2,z2] [page]>")
+                .setPermission("stemcraft.command.playerlog")
+                .setExecutor((api, cmd, ctx) -> {
+                    if (ctx.args().isEmpty()) {
+                        api.info(ctx.getSender(), cmd.getUsage());
+                        return;
+                    }
+
+                    switch (ctx.args().getFirst().toLowerCase(Locale.ROOT)) {
+                        case "stats" -> {
+                            PlayerLogStatistics stats = getStatistics();
+                            api.info(ctx.getSender(), "PLAYER_LOG_STATS",
+                                    "enqueued", String.valueOf(stats.enqueued()),
+                                    "dropped", String.valueOf(stats.dropped()),
+                                    "written", String.valueOf(stats.written()),
+                                    "queued", String.valueOf(stats.queued()),
+                                    "capacity", String.valueOf(stats.capacity()),
+                                    "limited", String.valueOf(stats.limited()));
+                        }
+                        case "reload" -> {
+                            plugin.reloadConfig();
+                            reload();
+                            api.info(ctx.getSender(), "PLAYER_LOG_RELOADED");
+                        }
+                        case "export" -> export(ctx.getSender());
+                        case "lookup" -> lookup(ctx.getSender(), ctx.args());
+                        default -> api.info(ctx.getSender(), cmd.getUsage());
+                    }
+                })
+                .register(plugin);
+
+        plugin.tabCompleteService().register("playerlogaction", () ->
+                Arrays.stream(PlayerLogAction.values()).map(a -> a.name().toLowerCase(Locale.ROOT)).toList());
 
         // periodic performance check every 2 minutes
         Bukkit.getScheduler().runTaskTimerAsynchronously(
@@ -111,17 +212,83 @@ public class PlayerLogManager implements PlayerLogService, Listener {
                 20L * 60 * 2
         );
 
-        // periodic flush every 2 minutes
+        // write coalesced entries once their window closes
         Bukkit.getScheduler().runTaskTimerAsynchronously(
                 plugin,
-                this::flushAll,
-                20L * 60 * 2,
-                20L * 60 * 2
+                () -> limiter.flush(System.currentTimeMillis()),
+                20L,
+                20L
+        );
+
+        // apply retention and compress past days at startup and then hourly
+        Bukkit.getScheduler().runTaskTimerAsynchronously(
+                plugin,
+                this::maintain,
+                20L,
+                20L * 60 * 60
         );
     }
 
     public void onDisable() {
-        flushAll();
+        if (limiter != null) {
+            limiter.flushAll();
+        }
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        if (liveFeed != null) {
+            liveFeed.close();
+        }
+    }
+
+    /**
+     * Open the write-ahead journal, replaying anything left by a crash. Returns null if the
+     * journal is disabled or cannot be opened.
+     */
+    private PlayerLogJournal openJournal() {
+        if (!plugin.getConfig().getBoolean("player_logs.journal.enabled", true)) {
+            return null;
+        }
+
+        try {
+            PlayerLogJournal journal = new PlayerLogJournal(
+                    new File(logDirectory, "journal.wal"),
+                    store,
+                    plugin.getConfig().getLong("player_logs.journal.sync_interval_ms", 1000),
+                    SCTime.parseDuration(plugin.getConfig().getString("player_logs.journal.checkpoint_interval", "30s"), false) * 1000L,
+                    SCText.toBytes(plugin.getConfig().getString("player_logs.journal.max_size", "16MB"))
+            );
+
+            long replayed = journal.open();
+            if (replayed > 0) {
+                plugin.getLogger().info("[PlayerLog] Recovered " + replayed + " entries from the journal");
+            }
+            return journal;
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warning("[PlayerLog] Could not open the player log journal, continuing without it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read the settings that can be changed by a reload.
+     */
+    private void loadSettings() {
+        maxDays = plugin.getConfig().getInt("player_logs.max_days", 28);
+        tpsThreshold = plugin.getConfig().getInt("player_logs.tps_threshold", 15);
+        memoryThreshold = SCText.toBytes(plugin.getConfig().getString("player_logs.memory_threshold", "5MB"));
+        trackedPlaceBlocks = PlayerLogMaterialMatcher.compile(loadPatterns("player_logs.blocks.place"));
+        trackedBreakBlocks = PlayerLogMaterialMatcher.compile(loadPatterns("player_logs.blocks.break"));
+        retention = loadRetention();
+    }
+
+    /**
+     * Apply the current config. Open coalescing windows are written once the new limits
+     * take over.
+     */
+    private void reload() {
+        loadSettings();
+        limiter.setPolicies(loadLimits());
     }
 
     private List<Pattern> loadPatterns(String path) {
@@ -138,115 +305,337 @@ public class PlayerLogManager implements PlayerLogService, Listener {
         return list;
     }
 
-    private boolean matches(List<Pattern> list, Material material) {
-        if (list.isEmpty()) return true; // empty = log everything
+    @Override
+    public void logPlayerAction(Player player, String action, String... placeholders) {
+        if (pipeline == null) return;
 
-        String name = material.name();
-        for (Pattern p : list) {
-            if (p.matcher(name).matches()) return true;
+        if (player == null) {
+            pipeline.submit(PlayerLogEntry.ofTemplate(PlayerLogEntry.SERVER_UUID, PlayerLogEntry.SERVER_NAME, action, placeholders));
+        } else {
+            pipeline.submit(PlayerLogEntry.ofTemplate(player.getUniqueId(), player.getName(), action, placeholders));
         }
-        return false;
     }
 
-    @Override
-    public void logPlayerAction(Player player, String action, String... placeholders) {
-        UUID id;
-        String name;
+    private void log(Player player, PlayerLogAction action, String subject, int amount, String detail) {
+        submit(player, action, null, 0, 0, 0, subject, amount, detail);
+    }
 
-        if (player == null) {
-            id = SERVER_UUID;
-            name = "_SERVER_";
+    private void logAt(Player player, PlayerLogAction action, Block block, String subject, int amount, String detail) {
+        submit(player, action, block.getWorld().getName(), block.getX(), block.getY(), block.getZ(), subject, amount, detail);
+    }
+
+    private void logAt(Player player, PlayerLogAction action, Location location, String subject, int amount, String detail) {
+        if (location == null || location.getWorld() == null) {
+            log(player, action, subject, amount, detail);
         } else {
-            id = player.getUniqueId();
-            name = player.getName();
+            submit(player, action, location.getWorld().getName(),
+                    location.getBlockX(), location.getBlockY(), location.getBlockZ(), subject, amount, detail);
         }
+    }
 
-        Deque<PlayerLogEntry> deque = buffers.computeIfAbsent(
-                id,
-                x -> new ArrayDeque<>()
-        );
+    private void submit(Player player, PlayerLogAction action, String world, int x, int y, int z,
+                        String subject, int amount, String detail) {
+        if (limiter == null) return;
 
-        deque.addFirst(new PlayerLogEntry(Instant.now(), SCText.placeholders(action, placeholders), name));
+        if (player == null) {
+            limiter.submit(PlayerLogEntry.of(PlayerLogEntry.SERVER_UUID, PlayerLogEntry.SERVER_NAME, action,
+                    world, x, y, z, subject, amount, detail));
+        } else {
+            limiter.submit(PlayerLogEntry.of(player.getUniqueId(), player.getName(), action,
+                    world, x, y, z, subject, amount, detail));
+        }
     }
 
-    private void flushAll() {
-        buffers.forEach((uuid, deque) -> {
-            String name = deque.peekFirst() != null ? deque.peekFirst().playerName() : null;
-            if (name != null) {
-                flush(uuid, name);
+    @Override
+    public CompletableFuture<List<PlayerLogRecord>> query(PlayerLogQuery query) {
+        if (store == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.query(query);
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-        });
+        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
     }
 
-    private void flush(Player player) {
-        if (player == null) return;
-        flush(player.getUniqueId(), player.getName());
-    }
+    @Override
+    public PlayerLogStatistics getStatistics() {
+        if (pipeline == null) {
+            return new PlayerLogStatistics(0, 0, 0, 0, 0, 0);
+        }
 
-    private void flush(UUID uuid, String playerName) {
-        Deque<PlayerLogEntry> deque = buffers.get(uuid);
-        Instant cutoff = Instant.now().minus(maxDays, ChronoUnit.DAYS);
+        return new PlayerLogStatistics(
+                pipeline.getEnqueued(),
+                pipeline.getDropped(),
+                pipeline.getWritten(),
+                pipeline.getQueued(),
+                pipeline.getCapacity(),
+                limiter.getLimited()
+        );
+    }
 
-        File file = new File(logDirectory, playerName + ".log");
-        List<PlayerLogEntry> merged = new ArrayList<>();
+    /**
+     * Run a lookup from command arguments and show the results as a paged chat menu.
+     */
+    private void lookup(CommandSender sender, List<String> args) {
+        PlayerLogQuery query = new PlayerLogQuery().limit(LOOKUP_LIMIT);
+        List<String> filters = new ArrayList<>();
 
-        // 1) Load existing entries from disk (if any)
-        if (file.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // Expect "yyyy-MM-dd HH:mm:ss <action>"
-                    if (line.length() < 20) continue; // too short to contain timestamp
-                    String tsPart = line.substring(0, 19);
-                    String action = line.length() > 20 ? line.substring(20) : "";
+        for (String arg : args.subList(1, args.size())) {
+            int sep = arg.indexOf(':');
+            if (sep < 0) continue; // page number
 
-                    try {
-                        LocalDateTime ldt = LocalDateTime.parse(tsPart, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        Instant ts = ldt.atZone(ZoneId.systemDefault()).toInstant();
+            String key = arg.substring(0, sep).toLowerCase(Locale.ROOT);
+            String value = arg.substring(sep + 1);
 
-                        if (!ts.isBefore(cutoff)) {
-                            merged.add(new PlayerLogEntry(ts, action, playerName));
-                        }
-                    } catch (DateTimeParseException ignored) {
-                        // bad line, skip
+            try {
+                switch (key) {
+                    case "p" -> query.player(value);
+                    case "a" -> {
+                        PlayerLogAction action = PlayerLogAction.fromString(value);
+                        if (action == null) throw new IllegalArgumentException();
+                        query.action(action);
                     }
+                    case "t" -> query.since(Instant.now().minusSeconds(SCTime.parseDuration(value, false)));
+                    case "w" -> query.world(value);
+                    case "r" -> {
+                        if (!(sender instanceof Player player)) throw new IllegalArgumentException();
+
+                        int radius = Integer.parseInt(value);
+                        Location loc = player.getLocation();
+                        query.world(loc.getWorld().getName());
+                        query.box(loc.getBlockX() - radius, loc.getBlockY() - radius, loc.getBlockZ() - radius,
+                                loc.getBlockX() + radius, loc.getBlockY() + radius, loc.getBlockZ() + radius);
+                    }
+                    case "b" -> {
+                        String[] c = value.split(",");
+                        if (c.length != 6) throw new IllegalArgumentException();
+                        query.box(Integer.parseInt(c[0]), Integer.parseInt(c[1]), Integer.parseInt(c[2]),
+                                Integer.parseInt(c[3]), Integer.parseInt(c[4]), Integer.parseInt(c[5]));
+                    }
+                    default -> throw new IllegalArgumentException();
                 }
-            } catch (IOException e) {
-                plugin.getLogger().warning("Failed to read existing log for " + playerName + ": " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                plugin.messengerService().error(sender, "PLAYER_LOG_LOOKUP_INVALID", "filter", arg);
+                return;
+            }
+
+            filters.add(arg);
+        }
+
+        int page = SCChatMenu.getPageFromArgs(args);
+        String command = "playerlog lookup" + (filters.isEmpty() ? "" : " " + String.join(" ", filters));
+
+        query(query).whenComplete((results, ex) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (ex != null) {
+                plugin.messengerService().error(sender, "PLAYER_LOG_LOOKUP_FAILED", ex, "error", ex.getMessage());
+                return;
             }
+
+            SCChatMenu.render(sender, "Player Log", command, page, results.size(), (start, count) -> {
+                List<Component> lines = new ArrayList<>();
+                for (int i = start; i < Math.min(start + count, results.size()); i++) {
+                    lines.add(formatLookupLine(results.get(i)));
+                }
+                return lines;
+            }, "PLAYER_LOG_LOOKUP_NONE");
+        }));
+    }
+
+    private static Component formatLookupLine(PlayerLogRecord record) {
+        Component line = Component.text(LOOKUP_TIME_FORMAT.format(record.timestamp()) + " ", NamedTextColor.GRAY)
+                .append(Component.text(record.playerName() + " ", NamedTextColor.GOLD))
+                .append(Component.text(record.message(), NamedTextColor.WHITE));
+
+        if (record.hasLocation()) {
+            String location = record.world() + " " + record.x() + "," + record.y() + "," + record.z();
+            line = line.hoverEvent(HoverEvent.showText(Component.text(location, NamedTextColor.AQUA)));
         }
 
-        // 2) Add in-memory entries (also pruning by maxDays)
-        if (deque != null && !deque.isEmpty()) {
-            for (PlayerLogEntry entry : deque) {
-                if (!entry.timestamp().isBefore(cutoff)) {
-                    merged.add(entry);
+        return line;
+    }
+
+    private PlayerLogRetention loadRetention() {
+        Map<PlayerLogAction, Integer> overrides = new EnumMap<>(PlayerLogAction.class);
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("player_logs.retention");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                PlayerLogAction action = PlayerLogAction.fromString(key);
+                if (action == null) {
+                    plugin.getLogger().warning("[PlayerLog] Unknown action in retention: " + key);
+                    continue;
                 }
+
+                overrides.put(action, section.getInt(key, maxDays));
             }
-            deque.clear(); // important to avoid re-logging the same entries
         }
 
-        // 3) Nothing left? Optionally delete file
-        if (merged.isEmpty()) {
-            if (file.exists()) {
-                // you can delete or leave an empty file; your call
-                // file.delete();
+        return new PlayerLogRetention(maxDays, overrides);
+    }
+
+    private synchronized boolean isExportRunning() {
+        return exportJob != null && !exportJob.isDone();
+    }
+
+    /**
+     * Start exporting the days completed since the last export, or return the export already
+     * running.
+     */
+    private synchronized CompletableFuture<PlayerLogExporter.Result> startExport() {
+        if (exportJob == null || exportJob.isDone()) {
+            exportJob = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return exporter.export();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }
+
+        return exportJob;
+    }
+
+    private void export(CommandSender sender) {
+        plugin.messengerService().info(sender, "PLAYER_LOG_EXPORT_STARTED");
+
+        startExport().whenComplete((result, ex) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                plugin.messengerService().error(sender, "PLAYER_LOG_EXPORT_FAILED", cause, "error", cause.getMessage());
+            } else if (result.files().isEmpty()) {
+                plugin.messengerService().info(sender, "PLAYER_LOG_EXPORT_NONE");
+            } else {
+                plugin.messengerService().info(sender, "PLAYER_LOG_EXPORTED",
+                        "days", String.valueOf(result.files().size()),
+                        "rows", String.valueOf(result.rows()),
+                        "path", exporter.getDirectory().getPath());
             }
-            return;
+        }));
+    }
+
+    /**
+     * {@code GET /playerlog/export} lists the export files and {@code POST} also starts an export
+     * in the background. Clients must pass the {@code player_logs.stream.token} as {@code token}.
+     */
+    private WebResponse handleExportRequest(WebRequest request, boolean start) {
+        if (!isWebTokenValid(request.getQueryParameters().get("token"))) {
+            return WebResponse.status(403, "Forbidden");
+        }
+
+        boolean running = start ? !startExport().isDone() : isExportRunning();
+        LocalDate checkpoint = exporter.getCheckpoint();
+
+        String[] files = exporter.getDirectory().list((dir, file) -> exporter.getFile(file) != null);
+        if (files == null) files = new String[0];
+        Arrays.sort(files);
+
+        StringBuilder json = new StringBuilder("{\"running\":").append(running)
+                .append(",\"checkpoint\":").append(checkpoint == null ? "null" : "\"" + checkpoint + "\"")
+                .append(",\"files\":[");
+        for (int i = 0; i < files.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(files[i]).append('"');
+        }
+        return WebResponse.json(json.append("]}").toString());
+    }
+
+    /**
+     * {@code GET /playerlog/export/<file>} downloads an export file, with the same token.
+     */
+    private WebResponse handleExportDownload(WebRequest request) {
+        if (!isWebTokenValid(request.getQueryParameters().get("token"))) {
+            return WebResponse.status(403, "Forbidden");
+        }
+
+        File file = exporter.getFile(request.getPathParameter("file"));
+        return file != null ? WebResponse.file(file) : WebResponse.status(404, "File not found");
+    }
+
+    /**
+     * Subscribe a web client to live entries. Clients can filter with {@code player} and
+     * {@code action} parameters, each a comma separated list, and must pass the
+     * {@code player_logs.stream.token} as {@code token}.
+     */
+    private boolean openLiveStream(String uri, Map<String, String> parameters, WebServiceEventStream stream) {
+        if (!isWebTokenValid(parameters.get("token"))) {
+            return false;
+        }
+
+        List<String> players = new ArrayList<>();
+        for (String player : parameters.getOrDefault("player", "").split(",")) {
+            if (!player.isBlank()) players.add(player.trim());
         }
 
-        // 4) Sort newest first
-        merged.sort(Comparator.comparing(PlayerLogEntry::timestamp).reversed());
+        List<PlayerLogAction> actions = new ArrayList<>();
+        for (String name : parameters.getOrDefault("action", "").split(",")) {
+            if (name.isBlank()) continue;
+
+            PlayerLogAction action = PlayerLogAction.fromString(name);
+            if (action == null) return false;
+            actions.add(action);
+        }
+
+        liveFeed.subscribe(stream, players, actions);
+        return true;
+    }
 
-        // 5) Rewrite file with merged entries
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
-            for (PlayerLogEntry entry : merged) {
-                String line = formatter.format(entry.timestamp()) + " " + entry.action();
-                writer.write(line);
-                writer.newLine();
+    /**
+     * Check a token a web client passed against {@code player_logs.stream.token}. While no token
+     * is configured every client is refused, as the entries include chat and commands.
+     */
+    private boolean isWebTokenValid(String supplied) {
+        String token = plugin.getConfig().getString("player_logs.stream.token", "");
+        if (token.isEmpty() || supplied == null) return false;
+
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), supplied.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the per action limits from {@code player_logs.limits}.
+     */
+    private Map<PlayerLogAction, PlayerLogLimiter.Policy> loadLimits() {
+        Map<PlayerLogAction, PlayerLogLimiter.Policy> policies = new EnumMap<>(PlayerLogAction.class);
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("player_logs.limits");
+        if (section == null) return policies;
+
+        for (String key : section.getKeys(false)) {
+            PlayerLogAction action = PlayerLogAction.fromString(key);
+            ConfigurationSection limit = section.getConfigurationSection(key);
+            if (action == null || limit == null) {
+                plugin.getLogger().warning("[PlayerLog] Unknown action in limits: " + key);
+                continue;
             }
-        } catch (IOException e) {
-            plugin.getLogger().warning("Failed to write player log for " + playerName + ": " + e.getMessage());
+
+            try {
+                double rate = Math.max(0, limit.getDouble("rate", 0));
+                policies.put(action, new PlayerLogLimiter.Policy(
+                        SCTime.parseDuration(limit.getString("coalesce", "0s"), false) * 1000L,
+                        Math.clamp(limit.getDouble("sample", 1.0), 0.0, 1.0),
+                        rate,
+                        Math.max(1, limit.getInt("burst", (int) Math.ceil(rate)))
+                ));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("[PlayerLog] Invalid limits for " + key + ": " + e.getMessage());
+            }
+        }
+
+        return policies;
+    }
+
+    private void maintain() {
+        PlayerLogStore.Maintenance result = store.maintain(retention);
+
+        if (result.removed() > 0 || result.compressed() > 0 || result.rewritten() > 0) {
+            plugin.getLogger().info("[PlayerLog] Removed " + result.removed() + " expired log segments, compressed "
+                    + result.compressed() + " and trimmed " + result.rewritten());
+        }
+        for (IOException e : result.errors()) {
+            plugin.getLogger().warning("[PlayerLog] Log maintenance failed: " + e.getMessage());
         }
     }
 
@@ -254,134 +643,137 @@ public class PlayerLogManager implements PlayerLogService, Listener {
 
     @EventHandler
     public void onChat(AsyncPlayerChatEvent event) {
-        logPlayerAction(event.getPlayer(), "CHAT: " + event.getMessage());
+        log(event.getPlayer(), PlayerLogAction.CHAT, null, 0, event.getMessage());
     }
 
     @EventHandler
     public void onCommand(PlayerCommandPreprocessEvent event) {
-        logPlayerAction(event.getPlayer(), "COMMAND: " + event.getMessage());
+        log(event.getPlayer(), PlayerLogAction.COMMAND, null, 0, event.getMessage());
     }
 
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "JOIN - UUID: " + player.getUniqueId());
+        logAt(player, PlayerLogAction.JOIN, player.getLocation(), null, 0, null);
     }
 
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "LEAVE");
-        flush(player);
+        limiter.flush(player.getUniqueId());
+        logAt(player, PlayerLogAction.LEAVE, player.getLocation(), null, 0, null);
+        pipeline.wakeup();
     }
 
     @EventHandler
     public void onKick(PlayerKickEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "KICK: " + event.getReason());
-        flush(player);
+        limiter.flush(player.getUniqueId());
+        logAt(player, PlayerLogAction.KICK, player.getLocation(), null, 0, event.getReason());
+        pipeline.wakeup();
     }
 
     @EventHandler
     public void onSign(SignChangeEvent event) {
         Player player = event.getPlayer();
         String[] lines = event.getLines();
-        logPlayerAction(player, "SIGN: " + String.join(" | ", lines));
+        logAt(player, PlayerLogAction.SIGN, event.getBlock(), null, 0, String.join(" | ", lines));
     }
 
     @EventHandler
     public void onTeleport(PlayerTeleportEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "TELEPORT: " + event.getFrom().getBlockX() + "," + event.getFrom().getBlockY() + "," + event.getFrom().getBlockZ()
+        logAt(player, PlayerLogAction.TELEPORT, event.getFrom(), null, 0, event.getFrom().getBlockX() + "," + event.getFrom().getBlockY() + "," + event.getFrom().getBlockZ()
                 + " -> " + event.getTo().getBlockX() + "," + event.getTo().getBlockY() + "," + event.getTo().getBlockZ());
     }
 
     @EventHandler
     public void onDeath(PlayerDeathEvent event) {
         Player player = event.getEntity();
-        logPlayerAction(player, "DEATH: " + event.getDeathMessage());
+        logAt(player, PlayerLogAction.DEATH, player.getLocation(), null, 0, event.getDeathMessage());
     }
 
     @EventHandler
     public void onLevelChange(PlayerLevelChangeEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "LEVEL: " + event.getOldLevel() + " -> " + event.getNewLevel());
+        log(player, PlayerLogAction.LEVEL, null, 0, event.getOldLevel() + " -> " + event.getNewLevel());
     }
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent event) {
         Material type = event.getBlockPlaced().getType();
 
-        if (!matches(trackedPlacePatterns, type)) return;
+        if (!trackedPlaceBlocks.matches(type)) return;
 
-        logPlayerAction(event.getPlayer(),
-                "BLOCK PLACE: " + type + " at " + event.getBlockPlaced().getLocation());
+        logAt(event.getPlayer(), PlayerLogAction.BLOCK_PLACE, event.getBlockPlaced(), type.name(), 0, null);
     }
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
         Material type = event.getBlock().getType();
 
-        if (!matches(trackedBreakPatterns, type)) return;
+        if (!trackedBreakBlocks.matches(type)) return;
 
-        logPlayerAction(event.getPlayer(),
-                "BLOCK BREAK: " + type + " at " + event.getBlock().getLocation());
+        logAt(event.getPlayer(), PlayerLogAction.BLOCK_BREAK, event.getBlock(), type.name(), 0, null);
     }
 
     @EventHandler
     public void onBucketFill(PlayerBucketFillEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "BUCKET FILL: " + event.getBucket());
+        logAt(player, PlayerLogAction.BUCKET_FILL, event.getBlockClicked(), event.getBucket().name(), 0, null);
     }
 
     @EventHandler
     public void onBucketEmpty(PlayerBucketEmptyEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "BUCKET EMPTY: " + event.getBucket());
+        logAt(player, PlayerLogAction.BUCKET_EMPTY, event.getBlockClicked(), event.getBucket().name(), 0, null);
     }
 
     @EventHandler
     public void onPickup(EntityPickupItemEvent event) {
         if (event.getEntity() instanceof Player player) {
-            logPlayerAction(player, "ITEM PICKUP: " + event.getItem().getItemStack());
+            ItemStack stack = event.getItem().getItemStack();
+            logAt(player, PlayerLogAction.ITEM_PICKUP, event.getItem().getLocation(), stack.getType().name(), stack.getAmount(), null);
         }
     }
 
     @EventHandler
     public void onDrop(PlayerDropItemEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "ITEM DROP: " + event.getItemDrop().getItemStack());
+        ItemStack stack = event.getItemDrop().getItemStack();
+        logAt(player, PlayerLogAction.ITEM_DROP, event.getItemDrop().getLocation(), stack.getType().name(), stack.getAmount(), null);
     }
 
     @EventHandler
     public void onEnchant(EnchantItemEvent event) {
         Player player = event.getEnchanter();
-        logPlayerAction(player, "ENCHANT: " + event.getItem());
+        logAt(player, PlayerLogAction.ENCHANT, event.getEnchantBlock(), event.getItem().getType().name(), 0, null);
     }
 
     @EventHandler
     public void onBookEdit(PlayerEditBookEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "BOOK EDIT: " + event.getPreviousBookMeta().getTitle() + " -> " +
+        log(player, PlayerLogAction.BOOK_EDIT, null, 0, event.getPreviousBookMeta().getTitle() + " -> " +
                 (event.getNewBookMeta() != null ? event.getNewBookMeta().getTitle() : "unknown"));
     }
 
     @EventHandler
     public void onFurnaceExtract(FurnaceExtractEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "FURNACE: EXTRACT " + event.getItemType() + " x" + event.getItemAmount());
+        logAt(player, PlayerLogAction.FURNACE, event.getBlock(), event.getItemType().name(), event.getItemAmount(), null);
     }
 
     @EventHandler
     public void onGameMode(PlayerGameModeChangeEvent event) {
         Player player = event.getPlayer();
-        logPlayerAction(player, "GAMEMODE: " + player.getGameMode() + " -> " + event.getNewGameMode());
+        log(player, PlayerLogAction.GAMEMODE, null, 0, player.getGameMode() + " -> " + event.getNewGameMode());
     }
 
     @EventHandler
     public void onCraft(CraftItemEvent event) {
         if (event.getWhoClicked() instanceof Player player) {
-            logPlayerAction(player, "CRAFT: " + event.getRecipe().getResult());
+            ItemStack result = event.getRecipe().getResult();
+            logAt(player, PlayerLogAction.CRAFT, event.getInventory().getLocation(), result.getType().name(), result.getAmount(), null);
         }
     }
 
@@ -389,7 +781,7 @@ public class PlayerLogManager implements PlayerLogService, Listener {
     public void onEntityDeath(EntityDeathEvent event) {
         if (event.getEntity().getKiller() != null) {
             Player killer = event.getEntity().getKiller();
-            logPlayerAction(killer, "ENTITY DEATH: " + event.getEntity().getType());
+            logAt(killer, PlayerLogAction.ENTITY_DEATH, event.getEntity().getLocation(), event.getEntity().getType().name(), 0, null);
         }
     }
 
@@ -397,7 +789,7 @@ public class PlayerLogManager implements PlayerLogService, Listener {
     public void onTNTPrime(EntityExplodeEvent event) {
         if (event.getEntityType().toString().contains("TNT")) {
             if (event.getEntity() instanceof Player player) {
-                logPlayerAction(player, "PRIMED TNT at " + event.getLocation());
+                logAt(player, PlayerLogAction.PRIMED_TNT, event.getLocation(), null, 0, null);
             }
         }
     }
@@ -406,43 +798,40 @@ public class PlayerLogManager implements PlayerLogService, Listener {
     public void onChestOpen(InventoryOpenEvent event) {
         if (event.getPlayer() instanceof Player player &&
                 event.getInventory().getType() == org.bukkit.event.inventory.InventoryType.CHEST) {
-            logPlayerAction(player, "CHEST OPEN: " + event.getInventory().getLocation());
+            logAt(player, PlayerLogAction.CHEST_OPEN, event.getInventory().getLocation(), null, 0, null);
         }
     }
 
     @EventHandler
     public void onFirstJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        File file = new File(logDirectory, player.getName() + ".log");
-        if (!file.exists()) {
-            logPlayerAction(player, "REGISTER");
+        if (!store.hasPlayer(player.getName())) {
+            log(player, PlayerLogAction.REGISTER, null, 0, null);
         }
     }
 
     @EventHandler
     public void onServerCommand(ServerCommandEvent event) {
-        if(event.getSender() instanceof BlockCommandSender) {
-            logPlayerAction(null, "COMMAND BLOCK: " + event.getCommand());
+        if(event.getSender() instanceof BlockCommandSender sender) {
+            logAt(null, PlayerLogAction.COMMAND_BLOCK, sender.getBlock(), null, 0, event.getCommand());
         } else {
-            logPlayerAction(null, "CONSOLE COMMAND: " + event.getCommand());
+            log(null, PlayerLogAction.CONSOLE_COMMAND, null, 0, event.getCommand());
         }
     }
 
     @EventHandler
     public void onRconCommand(ServerCommandEvent event) {
-        logPlayerAction(null, "RCON COMMAND: " + event.getCommand());
+        log(null, PlayerLogAction.RCON_COMMAND, null, 0, event.getCommand());
     }
 
     @EventHandler
     public void onPortalCreate(PortalCreateEvent event) {
         if(event.getBlocks().isEmpty()) {
-            logPlayerAction(null, "PORTAL CREATE at " + event.getReason() + " in " + event.getWorld().getName());
+            log(null, PlayerLogAction.PORTAL_CREATE, null, 0, "at " + event.getReason() + " in " + event.getWorld().getName());
             return;
         }
 
-        Location loc = event.getBlocks().getFirst().getLocation();
-        logPlayerAction(null, "PORTAL CREATE at " + loc.getBlockX() + "," + loc.getBlockY() + "," + loc.getBlockZ() +
-                " in " + event.getWorld().getName() + " due to " + event.getReason());
+        logAt(null, PlayerLogAction.PORTAL_CREATE, event.getBlocks().getFirst().getBlock(), null, 0, "due to " + event.getReason());
     }
 
     private double getCurrentTPS() {
@@ -460,13 +849,12 @@ public class PlayerLogManager implements PlayerLogService, Listener {
         long freeMemory = rt.freeMemory();
 
         if (tps >= 0 && tps < tpsThreshold) {
-            logPlayerAction(null, "TPS WARNING: " + tps);
+            log(null, PlayerLogAction.TPS_WARNING, null, 0, String.valueOf(tps));
         }
 
         if (freeMemory < memoryThreshold) {
-            logPlayerAction(null, "MEMORY WARNING: " + freeMemory + " bytes free");
+            log(null, PlayerLogAction.MEMORY_WARNING, null, 0, freeMemory + " bytes free");
         }
     }
 
-    private record PlayerLogEntry(Instant timestamp, String action, String playerName) { }
 }
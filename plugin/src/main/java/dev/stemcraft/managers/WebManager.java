@@ -23,24 +23,53 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import dev.stemcraft.STEMCraft;
+import dev.stemcraft.api.services.web.WebRequestHandler;
+import dev.stemcraft.api.services.web.WebResponse;
 import dev.stemcraft.api.services.web.WebService;
 import dev.stemcraft.api.services.web.WebServiceEndpointHandler;
+import dev.stemcraft.api.services.web.WebServiceEventStream;
+import dev.stemcraft.api.services.web.WebServiceEventStreamHandler;
+import dev.stemcraft.api.utils.SCTime;
+import dev.stemcraft.api.utils.SCText;
+import dev.stemcraft.web.HttpWebRequest;
+import dev.stemcraft.web.StaticFileCache;
+import dev.stemcraft.web.WebContent;
+import dev.stemcraft.web.WebFileResponse;
+import dev.stemcraft.web.WebRequestLimiter;
+import dev.stemcraft.web.WebRouter;
 import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.LinkedHashMap;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class WebManager implements WebService {
     private STEMCraft plugin;
     private File wwwRoot;
     private HttpServer httpServer;
-    private final Map<String, WebServiceEndpointHandler> endpointHandlers = new LinkedHashMap<>();
+    private ExecutorService requestExecutor;
+    private WebRequestLimiter requestLimiter;
+    private StaticFileCache fileCache;
+    private final WebRouter<Route> router = new WebRouter<>();
+    private final Set<EventStream> eventStreams = ConcurrentHashMap.newKeySet();
+    private int eventStreamQueue = 256;
+    private long compressMin = 1024;
 
     public WebManager(STEMCraft plugin) {
         this.plugin = plugin;
@@ -104,6 +133,11 @@ public class WebManager implements WebService {
             .register(plugin);
     }
 
+    @Override
+    public void onDisable() {
+        stop();
+    }
+
     public boolean isRunning() {
         return httpServer != null;
     }
@@ -134,30 +168,195 @@ public class WebManager implements WebService {
         }
 
         int port = plugin.config().getInt("web_server.port", 8950);
+        eventStreamQueue = Math.max(1, plugin.config().getInt("web_server.event_stream_queue", 256));
         String ip = plugin.config().getString("web_server.ip", "127.0.0.1");
 
+        int maxConcurrent = Math.max(1, plugin.config().getInt("web_server.max_concurrent", 64));
+        int queue = Math.max(0, plugin.config().getInt("web_server.queue", 256));
+        long timeout = SCTime.parseDuration(plugin.config().getString("web_server.request_timeout", "30s"), false) * 1000L;
+
+        if ("pool".equalsIgnoreCase(plugin.config().getString("web_server.executor", "virtual"))) {
+            // requests beyond the pool's queue are refused by closing the connection
+            int threads = Math.max(1, plugin.config().getInt("web_server.threads", 8));
+            requestExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+                        Thread thread = new Thread(r, "STEMCraft-Web-Request");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            requestExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("STEMCraft-Web-Request").factory());
+        }
+        compressMin = SCText.toBytes(plugin.config().getString("web_server.compress_min", "1KB"));
+        fileCache = new StaticFileCache(wwwRoot.toPath(),
+                SCText.toBytes(plugin.config().getString("web_server.cache_size", "32MB")),
+                SCText.toBytes(plugin.config().getString("web_server.cache_max_file", "1MB")),
+                compressMin);
+        try {
+            fileCache.start();
+        } catch (IOException e) {
+            // still serves from the cache, but changed files need a restart to show
+            plugin.warn("Could not watch the web server path for changes", e);
+        }
+
+        requestLimiter = new WebRequestLimiter(new WebServiceHandler(), maxConcurrent, queue, timeout);
+
         try {
             httpServer = HttpServer.create(new InetSocketAddress(ip, port), 0);
-            httpServer.createContext("/", new WebServiceHandler());
-            httpServer.setExecutor(null);
+            httpServer.createContext("/", requestLimiter);
+            httpServer.setExecutor(requestExecutor);
             httpServer.start();
             plugin.info("WEB_SERVER_STARTED_ON", "ip", ip, "port", String.valueOf(port));
         } catch (IOException e) {
             plugin.error("WEB_SERVER_START_FAILED", "error", e.getMessage());
             httpServer = null;
+            closeResources();
         }
     }
 
     public void stop() {
         if (httpServer != null) {
+            for (EventStream stream : eventStreams) {
+                stream.close();
+            }
+
             httpServer.stop(0);
             httpServer = null;
+            closeResources();
             plugin.info("WEB_SERVER_STOPPED");
         }
     }
 
+    private void closeResources() {
+        if (fileCache != null) {
+            fileCache.stop();
+            fileCache = null;
+        }
+        if (requestLimiter != null) {
+            requestLimiter.shutdown();
+            requestLimiter = null;
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+            requestExecutor = null;
+        }
+    }
+
+    /**
+     * A routed handler, either a request handler or an event stream.
+     */
+    private record Route(WebRequestHandler handler, WebServiceEventStreamHandler eventStream) { }
+
+    @Override
+    public void registerRoute(String method, String pattern, WebRequestHandler handler) {
+        router.add(method, pattern, new Route(handler, null), false);
+    }
+
     public void registerEndpointHandler(String path, WebServiceEndpointHandler handler) {
-        this.endpointHandlers.put(path, handler);
+        router.add(WebRouter.ANY_METHOD, path, new Route(request -> toResponse(handler.handle(request.getMethod(), request.getPath())), null), true);
+    }
+
+    public void registerEventStreamHandler(String path, WebServiceEventStreamHandler handler) {
+        router.add("GET", path, new Route(null, handler), true);
+    }
+
+    /**
+     * Convert the result of an endpoint handler to a response.
+     */
+    private static WebResponse toResponse(Object result) {
+        if (result instanceof WebResponse response) return response;
+        if (result instanceof File file) return WebResponse.file(file);
+
+        if (result instanceof Map<?,?> map) {
+            Object codeObj = map.get("code");
+            Object bodyObj = map.get("body");
+
+            int code = (codeObj instanceof Number) ? ((Number) codeObj).intValue() : 200;
+            return WebResponse.status(code, bodyObj != null ? bodyObj.toString() : "");
+        }
+
+        return WebResponse.ok(result != null ? result.toString() : "");
+    }
+
+    /**
+     * A Server-Sent Events response. Events wait in a bounded queue and are written by a virtual
+     * thread per client, so a slow client only ever blocks its own thread. A client whose queue
+     * fills up is disconnected rather than buffered without limit.
+     */
+    class EventStream implements WebServiceEventStream {
+        private static final long HEARTBEAT_SECONDS = 15;
+
+        private final HttpExchange exchange;
+        private final BlockingQueue<String> queue;
+        private volatile boolean open = true;
+        private Thread thread;
+
+        EventStream(HttpExchange exchange, int capacity) {
+            this.exchange = exchange;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void start() {
+            eventStreams.add(this);
+            thread = Thread.ofVirtual().name("STEMCraft-Web-EventStream").start(this::run);
+        }
+
+        @Override
+        public boolean send(String event, String data) {
+            if (!open) return false;
+
+            StringBuilder frame = new StringBuilder();
+            if (event != null) {
+                frame.append("event: ").append(event).append('\n');
+            }
+            for (String line : data.split("\n", -1)) {
+                frame.append("data: ").append(line).append('\n');
+            }
+            frame.append('\n');
+
+            if (!queue.offer(frame.toString())) {
+                close(); // too slow, drop the client
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        private void run() {
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+                os.flush();
+
+                while (open) {
+                    String frame = queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    os.write((frame != null ? frame : ": ping\n\n").getBytes(StandardCharsets.UTF_8));
+
+                    // write whatever else is waiting before flushing
+                    while ((frame = queue.poll()) != null) {
+                        os.write(frame.getBytes(StandardCharsets.UTF_8));
+                    }
+                    os.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // client disconnected or stream closed
+            } finally {
+                open = false;
+                eventStreams.remove(this);
+                exchange.close();
+            }
+        }
     }
 
 
@@ -165,64 +364,163 @@ public class WebManager implements WebService {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             String uri = exchange.getRequestURI().getPath();
-            File file = new File(wwwRoot, uri.substring(1));
+            WebRouter.Match<Route> match = router.match(exchange.getRequestMethod(), uri);
+
+            if (match != null && match.handler() != null) {
+                Route route = match.handler();
+                if (route.eventStream() != null) {
+                    openEventStream(exchange, uri, route.eventStream());
+                } else {
+                    sendResponse(exchange, route.handler().handle(new HttpWebRequest(exchange, match.parameters())));
+                }
+                return;
+            }
+
+            if (match != null) {
+                exchange.getResponseHeaders().set("Allow", String.join(", ", match.allowed()));
+                sendErrorResponse(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            if (!method.equalsIgnoreCase("GET") && !method.equalsIgnoreCase("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendErrorResponse(exchange, 405, "Method not allowed");
+                return;
+            }
 
-            if (!file.getAbsolutePath().startsWith(wwwRoot.getAbsolutePath())) {
+            Path root = wwwRoot.toPath().toAbsolutePath().normalize();
+            Path file;
+            try {
+                file = root.resolve(uri.substring(1)).normalize();
+            } catch (InvalidPathException e) {
+                sendErrorResponse(exchange, 404, "File not found");
+                return;
+            }
+            if (!file.startsWith(root)) {
                 sendErrorResponse(exchange, 403, "Forbidden");
                 return;
             }
 
-            for (var e : endpointHandlers.entrySet()) {
-                if (uri.startsWith(e.getKey())) {
-                    Object result = e.getValue().handle("GET", uri);
+            if (Files.isDirectory(file)) {
+                sendErrorResponse(exchange, 403, "Directory listing not permitted");
+                return;
+            }
 
-                    int code;
-                    byte[] bodyBytes;
+            StaticFileCache.Entry entry = fileCache.get(file);
+            if (entry == null) {
+                sendErrorResponse(exchange, 404, "File not found");
+                return;
+            }
 
-                    if (result instanceof Map<?,?> map) {
-                        Object codeObj = map.get("code");
-                        Object bodyObj = map.get("body");
+            // ranges are served from the file as is, so resumed downloads line up
+            boolean ranged = exchange.getRequestHeaders().containsKey("Range");
+            String encoding = ranged ? null
+                    : WebContent.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"), entry.variants().keySet());
+            StaticFileCache.Variant variant = encoding != null ? entry.variants().get(encoding) : null;
+            String etag = variant != null ? variant.etag() : entry.etag();
 
-                        code = (codeObj instanceof Number) ? ((Number) codeObj).intValue() : 200;
-                        String body = (bodyObj != null) ? bodyObj.toString() : "";
-                        bodyBytes = body.getBytes();
-                    } else {
-                        code = 200;
-                        bodyBytes = result != null ? result.toString().getBytes() : new byte[0];
-                    }
+            exchange.getResponseHeaders().set("Content-Type", entry.contentType());
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Last-Modified", StaticFileCache.httpDate(entry.lastModified()));
+            if (!entry.variants().isEmpty()) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+            if (StaticFileCache.isNotModified(etag, entry.lastModified(), exchange.getRequestHeaders().getFirst("If-None-Match"),
+                    exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
 
-                    exchange.sendResponseHeaders(code, bodyBytes.length);
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(bodyBytes);
-                    }
+            // Serve the requested file, large files are not cached and are streamed from disk
+            if (variant != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+                WebFileResponse.send(exchange, variant.path(), variant.data(), variant.size(), etag, entry.lastModified());
+            } else {
+                WebFileResponse.send(exchange, entry.path(), entry.data(), entry.size(), etag, entry.lastModified());
+            }
+        }
 
+        private void openEventStream(HttpExchange exchange, String uri, WebServiceEventStreamHandler handler) throws IOException {
+            EventStream stream = new EventStream(exchange, eventStreamQueue);
+            if (!handler.open(uri, HttpWebRequest.parseQuery(exchange.getRequestURI().getRawQuery()), stream)) {
+                sendErrorResponse(exchange, 403, "Forbidden");
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            stream.start();
+        }
+
+        private void sendResponse(HttpExchange exchange, WebResponse response) throws IOException {
+            response.getHeaders().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+
+            File resultFile = response.getFile();
+            if (resultFile != null) {
+                if (!resultFile.isFile()) {
+                    sendErrorResponse(exchange, 404, "File not found");
                     return;
                 }
-            }
 
-            if (file.isDirectory()) {
-                sendErrorResponse(exchange, 403, "Directory listing not permitted");
+                long size = resultFile.length();
+                long lastModified = resultFile.lastModified();
+                String etag = StaticFileCache.etag(size, lastModified);
+                exchange.getResponseHeaders().set("Content-Type",
+                        response.getContentType() != null ? response.getContentType() : WebContent.contentType(resultFile.getName()));
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.getResponseHeaders().set("Last-Modified", StaticFileCache.httpDate(lastModified));
+                WebFileResponse.send(exchange, resultFile.toPath(), null, size, etag, lastModified);
                 return;
             }
 
-            if (!file.exists()) {
-                sendErrorResponse(exchange, 404, "File not found");
+            byte[] body = response.getBody() != null ? response.getBody() : new byte[0];
+            String contentType = response.getContentType();
+            if (contentType == null) {
+                contentType = isJson(body) ? "application/json" : "text/plain; charset=utf-8";
+            }
+            sendBody(exchange, response.getStatus(), body, contentType);
+        }
+
+        /**
+         * Send a response body, gzipped if it is large enough and the client accepts it.
+         */
+        private void sendBody(HttpExchange exchange, int code, byte[] body, String contentType) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            if (body.length >= compressMin && WebContent.isCompressible(contentType)) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (WebContent.GZIP.equals(WebContent.negotiate(accept, List.of(WebContent.GZIP)))) {
+                    exchange.getResponseHeaders().set("Content-Encoding", WebContent.GZIP);
+                    body = WebContent.gzip(body);
+                }
+            }
+
+            // HEAD responses carry the headers only
+            if (body.length == 0 || exchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+                exchange.sendResponseHeaders(code, -1);
+                exchange.close();
                 return;
             }
 
-            // Serve the requested file
-            byte[] fileBytes = Files.readAllBytes(file.toPath());
-            exchange.sendResponseHeaders(200, fileBytes.length);
+            exchange.sendResponseHeaders(code, body.length);
             try (OutputStream os = exchange.getResponseBody()) {
-                os.write(fileBytes);
+                os.write(body);
             }
         }
 
-        private void sendErrorResponse(HttpExchange exchange, int statusCode, String errorMessage) throws IOException {
-            exchange.sendResponseHeaders(statusCode, errorMessage.length());
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(errorMessage.getBytes());
+        private static boolean isJson(byte[] body) {
+            for (byte b : body) {
+                if (b == '{' || b == '[') return true;
+                if (!Character.isWhitespace(b)) return false;
             }
+            return false;
+        }
+
+        private void sendErrorResponse(HttpExchange exchange, int statusCode, String errorMessage) throws IOException {
+            sendBody(exchange, statusCode, errorMessage.getBytes(StandardCharsets.UTF_8), "text/plain; charset=utf-8");
         }
     }
 }
@@ -3,7 +3,21 @@ package dev.stemcraft.managers;
 import dev.stemcraft.STEMCraft;
 import dev.stemcraft.api.factories.ChunkGeneratorFactory;
 import dev.stemcraft.api.services.WorldService;
-import dev.stemcraft.api.utils.SCText;
+import dev.stemcraft.api.services.world.WorldFileTask;
+import dev.stemcraft.api.services.world.WorldPool;
+import dev.stemcraft.api.services.world.WorldRollback;
+import dev.stemcraft.api.services.world.WorldSnapshot;
+import dev.stemcraft.api.utils.SCRegion;
+import dev.stemcraft.api.utils.SCTime;
+import dev.stemcraft.worldfiles.FileTask;
+import dev.stemcraft.worldfiles.TemplateWorldPool;
+import dev.stemcraft.worldfiles.WorldCopier;
+import dev.stemcraft.worldfiles.WorldReclaimer;
+import dev.stemcraft.worldfiles.WorldSnapshots;
+import dev.stemcraft.worldstate.CaptureScope;
+import dev.stemcraft.worldstate.RecordedWorldState;
+import dev.stemcraft.worldstate.RecordedWorldStateFile;
+import dev.stemcraft.worldstate.WorldRollbackJob;
 import org.bukkit.*;
 import org.bukkit.block.*;
 import org.bukkit.block.data.BlockData;
@@ -21,29 +35,60 @@ import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.player.PlayerBucketEmptyEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.generator.ChunkGenerator;
-import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.DoubleChestInventory;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.*;
 import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class WorldManager implements WorldService {
     private final STEMCraft plugin;
     private final Map<String, ChunkGeneratorFactory> registry = new ConcurrentHashMap<>();
 
-    private final List<World> recordActive = new ArrayList<>();
+    private final Map<World,CaptureScope> recordActive = new HashMap<>();
     private final Map<World,RecordedWorldState> recordState = new HashMap<>();
+    private final Map<World,WorldRollbackJob> rollbacks = new ConcurrentHashMap<>();
+    private final Map<World,CompletableFuture<Void>> saves = new HashMap<>();
+
+    private ExecutorService fileExecutor;
+    private WorldCopier copier;
+    private WorldReclaimer reclaimer;
+    private WorldSnapshots snapshots;
+    private final Map<String,CompletableFuture<WorldSnapshot>> snapshotting = new HashMap<>();
+    private final Map<String,TemplateWorldPool> pools = new ConcurrentHashMap<>();
 
     public WorldManager(STEMCraft plugin) {
         this.plugin = plugin;
     }
 
+    public void onDisable() {
+        pools.values().forEach(TemplateWorldPool::shutdown);
+        new ArrayList<>(rollbacks.values()).forEach(WorldRollbackJob::cancel);
+        recordState.forEach((world, state) -> saveCapture(world, state, false));
+
+        synchronized (this) {
+            if (fileExecutor != null) {
+                fileExecutor.shutdown();
+            }
+            if (reclaimer != null) {
+                reclaimer.shutdown();
+            }
+        }
+    }
+
     public void onEnable() {
         // Load worlds
         ConfigurationSection worldsSection = plugin.config().getConfigurationSection("worlds");
@@ -75,13 +120,46 @@ public class WorldManager implements WorldService {
             }
         }
 
+        // Finish deleting worlds a restart interrupted
+        reclaimer().reclaimAll().forEach(task -> task.future().whenComplete((v, ex) -> {
+            if (ex != null) {
+                plugin.warn("Could not reclaim deleted world {name}", ex, "name", task.getWorldName());
+            }
+        }));
+
+        long snapshotInterval = SCTime.parseDuration(plugin.config().getString("world_snapshots.interval", "0s"), false) * 20L;
+        List<String> snapshotWorlds = plugin.config().getStringList("world_snapshots.worlds");
+        if (snapshotInterval > 0 && !snapshotWorlds.isEmpty()) {
+            Bukkit.getScheduler().runTaskTimer(plugin, () -> snapshotWorlds.forEach(this::scheduledSnapshot), snapshotInterval, snapshotInterval);
+        }
+
+        ConfigurationSection poolsSection = plugin.config().getConfigurationSection("world_pools");
+        if (poolsSection != null) {
+            for (String template : poolsSection.getKeys(false)) {
+                if (!worldExists(template)) {
+                    plugin.warn("World pool template {name} does not exist", "name", template);
+                    continue;
+                }
+                createWorldPool(template, poolsSection.getInt(template + ".size", 1), poolsSection.getBoolean(template + ".preload", false));
+            }
+        }
+
         plugin.registerCommand("world")
-                .addTabCompletion("start")
+                .addTabCompletion("start", "selection")
                 .addTabCompletion("enable")
                 .addTabCompletion("disable")
                 .addTabCompletion("enable")
                 .addTabCompletion("status")
-                .setUsage("webserver <start|stop|enable|disable>")
+                .addTabCompletion("rollback")
+                .addTabCompletion("cancel")
+                .addTabCompletion("checkpoint")
+                .addTabCompletion("checkpoints")
+                .addTabCompletion("duplicate", "{world}")
+                .addTabCompletion("delete", "{world}")
+                .addTabCompletion("snapshot", "{world}")
+                .addTabCompletion("snapshots", "{world}")
+                .addTabCompletion("restore", "{world}")
+                .setUsage("world <start|stop|rollback|checkpoint|checkpoints|duplicate|delete|snapshot|snapshots|restore|cancel|status|reset>")
                 .setExecutor((api, cmd, ctx) -> {
                     if (ctx.args().isEmpty()) {
                         api.info(ctx.getSender(), cmd.getUsage());
@@ -93,6 +171,25 @@ public class WorldManager implements WorldService {
                             Player player = (Player)ctx.getSender();
                             World world = player.getWorld();
 
+                            if (ctx.args().size() > 1 && ctx.args().get(1).equalsIgnoreCase("selection")) {
+                                SCRegion selection = SCRegion.getWESelection(player);
+                                if (selection == null) {
+                                    api.error(player, "Select a cuboid or polygon region with WorldEdit first");
+                                    return;
+                                }
+
+                                // add to the regions already captured, unless the whole world is
+                                List<SCRegion> regions = new ArrayList<>(getCaptureRegions(world));
+                                if (isCapturing(world) && regions.isEmpty()) {
+                                    api.error(player, "The whole world is already being recorded");
+                                    return;
+                                }
+                                regions.add(selection);
+                                captureStart(world, regions);
+                                api.info(player, "Recording {count} regions", "count", String.valueOf(regions.size()));
+                                return;
+                            }
+
                             captureStart(world);
                             api.info(player, "Started recording");
                         }
@@ -107,9 +204,154 @@ public class WorldManager implements WorldService {
                             Player player = (Player)ctx.getSender();
                             World world = player.getWorld();
 
-                            captureStop(world);
-                            captureRollback(world);
-                            api.info(player, "Rolled back data");
+                            if (getRollback(world).isPresent()) {
+                                api.error(player, "A rollback is already running");
+                                return;
+                            }
+
+                            CompletableFuture<Integer> rollback = ctx.args().size() > 1
+                                    ? captureRollback(world, ctx.args().get(1))
+                                    : captureRollback(world);
+                            rollback.whenComplete((count, ex) -> {
+                                if (ex == null) {
+                                    api.info(player, "Rolled back {count} blocks", "count", String.valueOf(count));
+                                } else if (ex instanceof IllegalArgumentException) {
+                                    api.error(player, ex.getMessage());
+                                } else if (!(ex instanceof CancellationException)) {
+                                    api.error(player, "Rollback failed", ex);
+                                }
+                            });
+                            if (!rollback.isDone()) {
+                                api.info(player, "Rolling back data");
+                            }
+                        }
+                        case "checkpoint" -> {
+                            Player player = (Player)ctx.getSender();
+                            World world = player.getWorld();
+
+                            if (ctx.args().size() < 2) {
+                                api.info(player, "world checkpoint <name>");
+                            } else if (captureCheckpoint(world, ctx.args().get(1))) {
+                                api.info(player, "Checkpoint {name} created", "name", ctx.args().get(1));
+                            } else {
+                                api.error(player, "Could not create checkpoint {name}", "name", ctx.args().get(1));
+                            }
+                        }
+                        case "duplicate" -> {
+                            if (ctx.args().size() < 3) {
+                                api.info(ctx.getSender(), "world duplicate <source> <target>");
+                                return;
+                            }
+
+                            String source = ctx.args().get(1);
+                            String target = ctx.args().get(2);
+                            duplicateWorldAsync(source, target).future().whenComplete((v, ex) -> {
+                                if (ex == null) {
+                                    api.info(ctx.getSender(), "Duplicated {source} to {target}", "source", source, "target", target);
+                                } else {
+                                    api.error(ctx.getSender(), "Could not duplicate {source}: {error}", "source", source,
+                                            "error", String.valueOf(WorldCopier.unwrap(ex).getMessage()));
+                                }
+                            });
+                            api.info(ctx.getSender(), "Duplicating {source} to {target}", "source", source, "target", target);
+                        }
+                        case "delete" -> {
+                            if (ctx.args().size() < 2) {
+                                api.info(ctx.getSender(), "world delete <world>");
+                                return;
+                            }
+
+                            String name = ctx.args().get(1);
+                            WorldFileTask task = deleteWorldAsync(name);
+                            if (task.future().isCompletedExceptionally()) {
+                                task.future().exceptionally(ex -> {
+                                    api.error(ctx.getSender(), "Could not delete {name}: {error}", "name", name,
+                                            "error", String.valueOf(WorldCopier.unwrap(ex).getMessage()));
+                                    return null;
+                                });
+                                return;
+                            }
+
+                            api.info(ctx.getSender(), "Deleted {name}, reclaiming space in the background", "name", name);
+                        }
+                        case "snapshot" -> {
+                            if (ctx.args().size() < 2) {
+                                api.info(ctx.getSender(), "world snapshot <world>");
+                                return;
+                            }
+
+                            String name = ctx.args().get(1);
+                            snapshotWorld(name).whenComplete((snapshot, ex) -> {
+                                if (ex == null) {
+                                    api.info(ctx.getSender(), "Snapshot {id} of {name} taken, {copied} bytes copied", "id", snapshot.id(),
+                                            "name", name, "copied", String.valueOf(snapshot.copied()));
+                                } else {
+                                    api.error(ctx.getSender(), "Could not snapshot {name}: {error}", "name", name,
+                                            "error", String.valueOf(WorldCopier.unwrap(ex).getMessage()));
+                                }
+                            });
+                            api.info(ctx.getSender(), "Taking a snapshot of {name}", "name", name);
+                        }
+                        case "snapshots" -> {
+                            if (ctx.args().size() < 2) {
+                                api.info(ctx.getSender(), "world snapshots <world>");
+                                return;
+                            }
+
+                            List<String> ids;
+                            try {
+                                ids = listSnapshots(ctx.args().get(1)).stream().map(WorldSnapshot::id).toList();
+                            } catch (IllegalArgumentException e) {
+                                api.error(ctx.getSender(), e.getMessage());
+                                return;
+                            }
+                            api.info(ctx.getSender(), "Snapshots: {list}", "list", ids.isEmpty() ? "none" : String.join(", ", ids));
+                        }
+                        case "restore" -> {
+                            if (ctx.args().size() < 4) {
+                                api.info(ctx.getSender(), "world restore <world> <snapshot> <target>");
+                                return;
+                            }
+
+                            String name = ctx.args().get(1);
+                            String target = ctx.args().get(3);
+                            restoreSnapshot(name, ctx.args().get(2), target).future().whenComplete((v, ex) -> {
+                                if (ex == null) {
+                                    api.info(ctx.getSender(), "Restored {name} to {target}", "name", name, "target", target);
+                                } else {
+                                    api.error(ctx.getSender(), "Could not restore {name}: {error}", "name", name,
+                                            "error", String.valueOf(WorldCopier.unwrap(ex).getMessage()));
+                                }
+                            });
+                            api.info(ctx.getSender(), "Restoring {name} to {target}", "name", name, "target", target);
+                        }
+                        case "checkpoints" -> {
+                            Player player = (Player)ctx.getSender();
+                            World world = player.getWorld();
+
+                            api.info(player, "Checkpoints: {list}", "list", String.join(", ", getCaptureCheckpoints(world)));
+                        }
+                        case "cancel" -> {
+                            Player player = (Player)ctx.getSender();
+                            World world = player.getWorld();
+
+                            getRollback(world).ifPresentOrElse(rollback -> {
+                                rollback.cancel();
+                                api.info(player, "Rollback cancelled after {restored} of {total} blocks",
+                                        "restored", String.valueOf(rollback.getRestored()),
+                                        "total", String.valueOf(rollback.getTotal()));
+                            }, () -> api.error(player, "No rollback is running"));
+                        }
+                        case "status" -> {
+                            Player player = (Player)ctx.getSender();
+                            World world = player.getWorld();
+
+                            getRollback(world).ifPresentOrElse(rollback ->
+                                    api.info(player, "Rolling back: {restored} of {total} blocks ({percent}%)",
+                                            "restored", String.valueOf(rollback.getRestored()),
+                                            "total", String.valueOf(rollback.getTotal()),
+                                            "percent", String.valueOf((int) (rollback.getProgress() * 100))),
+                                    () -> api.info(player, isCapturing(world) ? "Recording" : "Not recording"));
                         }
                         case "reset" -> {
                             Player player = (Player)ctx.getSender();
@@ -124,6 +366,22 @@ public class WorldManager implements WorldService {
                 .register(plugin);
 
         // World State Recording
+        Bukkit.getWorlds().forEach(this::loadCapture);
+        plugin.registerEvent(WorldLoadEvent.class, event -> loadCapture(event.getWorld()));
+        plugin.registerEvent(WorldUnloadEvent.class, event -> {
+            World world = event.getWorld();
+            RecordedWorldState state = recordState.get(world);
+            if (state == null || rollbacks.containsKey(world)) return;
+
+            saveCapture(world, state, false);
+            recordState.remove(world);
+            recordActive.remove(world);
+        });
+
+        long saveInterval = Math.max(1, SCTime.parseDuration(plugin.config().getString("world_capture.save_interval", "5m"), false)) * 20L;
+        Bukkit.getScheduler().runTaskTimer(plugin, () ->
+                recordState.forEach((world, state) -> saveCapture(world, state, true)), saveInterval, saveInterval);
+
         plugin.registerEvent(BlockBreakEvent.class, event -> {
             capture(event.getBlock());
         });
@@ -271,7 +529,7 @@ public class WorldManager implements WorldService {
 
         plugin.registerEvent(InventoryMoveItemEvent.class, event -> {
             // hopper world
-            if (!isCapturing(event.getSource().getLocation().getWorld())) return;
+            if (recordActive.isEmpty()) return;
 
             // record source container (if block-backed)
             recordInventoryContainer(event.getSource());
@@ -296,7 +554,7 @@ public class WorldManager implements WorldService {
             if (!isCapturing(event.getBlock().getWorld())) return;
 
             // First cook tick after recording starts will snapshot this campfire/furnace
-            capture(event.getBlock().getState());
+            capture(event.getBlock());
         });
 
         plugin.registerEvent(BlockPistonExtendEvent.class, event -> {
@@ -381,11 +639,30 @@ public class WorldManager implements WorldService {
     // -------- fs ops (must be unloaded)
     @Override public void deleteWorld(String name) throws IOException {
         requireUnloaded(name);
-        Path root = worldRoot(name);
-        if (!Files.exists(root)) return;
-        try (var s = Files.walk(root)) {
-            s.sorted(Comparator.reverseOrder()).forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignored) {} });
+        WorldFileTask task = deleteWorldAsync(name);
+
+        // only the move into the trash is waited on, the files are reclaimed in the background
+        if (task.future().isCompletedExceptionally()) await(task);
+    }
+
+    @Override public WorldFileTask deleteWorldAsync(String name) {
+        if (isWorldLoaded(name)) {
+            FileTask task = new FileTask(name);
+            task.future().completeExceptionally(new IOException("World is loaded: " + name));
+            return task;
         }
+
+        WorldFileTask task = reclaimer().delete(name, worldRoot(name));
+
+        // the move into the trash happens before delete returns, keep the capture if it failed
+        if (!task.future().isCompletedExceptionally()) {
+            try {
+                Files.deleteIfExists(captureFile(name).toPath());
+            } catch (IOException e) {
+                plugin.warn("Could not delete the capture for world {name}", e, "name", name);
+            }
+        }
+        return task;
     }
 
     @Override public void renameWorld(String oldName, String newName) throws IOException {
@@ -395,26 +672,88 @@ public class WorldManager implements WorldService {
 
     @Override public void duplicateWorld(String src, String dst) throws IOException {
         requireUnloaded(src); requireUnloaded(dst);
-        Path s = worldRoot(src), d = worldRoot(dst);
-        if (!Files.exists(s)) throw new IOException("Source world not found: " + src);
-        try (var stream = Files.walk(s)) {
-            stream.forEach(p -> {
-                Path rel = s.relativize(p);
-                String rs = rel.toString().replace('\\', '/');
-                if (rs.endsWith("uid.dat") || rs.endsWith("session.lock")) return;
-
-                Path out = d.resolve(rel);
-                try {
-                    if (Files.isDirectory(p)) {
-                        Files.createDirectories(out);
-                    } else {
-                        Files.copy(p, out, StandardCopyOption.COPY_ATTRIBUTES);
-                    }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e); // cleaner than RuntimeException
-                }
-            });
+        await(duplicateWorldAsync(src, dst));
+    }
+
+    @Override public WorldFileTask duplicateWorldAsync(String src, String dst) {
+        if (isWorldLoaded(src) || isWorldLoaded(dst)) {
+            FileTask task = new FileTask(dst);
+            task.future().completeExceptionally(new IOException("World is loaded: " + (isWorldLoaded(src) ? src : dst)));
+            return task;
+        }
+        return copier().copy(dst, worldRoot(src), worldRoot(dst));
+    }
+
+    // -------- snapshots
+    @Override public CompletableFuture<WorldSnapshot> snapshotWorld(String name) {
+        if (!Bukkit.isPrimaryThread()) {
+            return CompletableFuture.supplyAsync(() -> snapshotWorld(name), r -> Bukkit.getScheduler().runTask(plugin, r))
+                    .thenCompose(future -> future);
+        }
+
+        CompletableFuture<WorldSnapshot> pending = snapshotting.get(name);
+        if (pending != null) return pending;
+
+        World world = Bukkit.getWorld(name);
+        boolean autoSave = world != null && world.isAutoSave();
+        if (world != null) {
+            // flush chunks to the region files, then keep them still until they are stored
+            world.save();
+            world.setAutoSave(false);
+        }
+
+        CompletableFuture<WorldSnapshot> future = snapshots().snapshot(name, worldRoot(name));
+        snapshotting.put(name, future);
+        future.whenComplete((snapshot, ex) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            snapshotting.remove(name);
+            if (autoSave && Bukkit.getWorld(name) == world) {
+                world.setAutoSave(true);
+            }
+        }));
+        return future;
+    }
+
+    @Override public List<WorldSnapshot> listSnapshots(String name) {
+        return snapshots().list(name);
+    }
+
+    @Override public WorldFileTask restoreSnapshot(String name, String id, String target) {
+        if (isWorldLoaded(target)) {
+            FileTask task = new FileTask(target);
+            task.future().completeExceptionally(new IOException("World is loaded: " + target));
+            return task;
         }
+        return snapshots().restore(name, id, worldRoot(target), target);
+    }
+
+    private void scheduledSnapshot(String name) {
+        if (!worldExists(name)) {
+            plugin.warn("Cannot snapshot world {name} as it does not exist", "name", name);
+            return;
+        }
+
+        int keep = plugin.config().getInt("world_snapshots.keep", 0);
+        snapshotWorld(name).thenCompose(snapshot -> {
+            plugin.log("Snapshot {id} of world {name}: {copied} of {bytes} bytes copied", "id", snapshot.id(), "name", name,
+                    "copied", String.valueOf(snapshot.copied()), "bytes", String.valueOf(snapshot.bytes()));
+            return keep > 0 ? snapshots().prune(name, keep) : CompletableFuture.completedFuture(0);
+        }).exceptionally(ex -> {
+            plugin.warn("Could not snapshot world {name}", WorldCopier.unwrap(ex), "name", name);
+            return 0;
+        });
+    }
+
+    // -------- pools
+    @Override public WorldPool createWorldPool(String template, int size, boolean preload) {
+        return pools.computeIfAbsent(template.toLowerCase(Locale.ROOT), key -> {
+            TemplateWorldPool pool = new TemplateWorldPool(plugin, this, template, size, preload);
+            pool.start();
+            return pool;
+        });
+    }
+
+    @Override public Optional<WorldPool> getWorldPool(String template) {
+        return Optional.ofNullable(pools.get(template.toLowerCase(Locale.ROOT)));
     }
 
     // -------- discovery
@@ -439,204 +778,234 @@ public class WorldManager implements WorldService {
     }
 
     // -------- helpers
-    private void requireUnloaded(String name) throws IOException {
-        if (isWorldLoaded(name)) throw new IOException("World is loaded: " + name);
+    private synchronized ExecutorService fileExecutor() {
+        if (fileExecutor == null) {
+            int threads = Math.max(1, plugin.config().getInt("world_files.threads", 4));
+            fileExecutor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "STEMCraft-World-Files");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return fileExecutor;
     }
-    private Path worldRoot(String name) { return plugin.getServer().getWorldContainer().toPath().resolve(name); }
-    private Path levelDat(String name)  { return worldRoot(name).resolve("level.dat"); }
 
-    static class RecordedWorldState {
-        Map<String,RecordedBlockState> blockStateMap = new HashMap<String, RecordedBlockState>();
-        Set<UUID> spawnedEntities = new HashSet<>();
+    private synchronized WorldReclaimer reclaimer() {
+        if (reclaimer == null) {
+            reclaimer = new WorldReclaimer(plugin.getServer().getWorldContainer().toPath().resolve(".stemcraft-trash"));
+        }
+        return reclaimer;
+    }
 
-        void recordEntity(Entity e) {
-            spawnedEntities.add(e.getUniqueId());
+    private synchronized WorldSnapshots snapshots() {
+        if (snapshots == null) {
+            snapshots = new WorldSnapshots(plugin.getDataFolder().toPath().resolve("snapshots"), fileExecutor());
         }
+        return snapshots;
+    }
 
-        public void recordBlock(BlockState state) {
-            String locString = state.getX() + "," + state.getY() + "," + state.getZ();
-            if (!blockStateMap.containsKey(locString)) {
-                blockStateMap.put(locString, new RecordedBlockState(state));
-            }
+    private synchronized WorldCopier copier() {
+        if (copier == null) {
+            copier = new WorldCopier(fileExecutor(), plugin.config().getStringList("world_files.hardlink"));
         }
+        return copier;
+    }
 
-        void save(ConfigurationSection section) {
-            ConfigurationSection blocksSection = section.createSection("blocks");
-            for (Map.Entry<String, RecordedBlockState> entry : blockStateMap.entrySet()) {
-                ConfigurationSection bs = blocksSection.createSection(entry.getKey());
-                entry.getValue().save(bs);
-            }
+    /**
+     * Wait for a file task, rethrowing its IOException.
+     */
+    private static void await(WorldFileTask task) throws IOException {
+        try {
+            task.future().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
         }
+    }
 
-        static RecordedWorldState load(ConfigurationSection section) {
-            RecordedWorldState worldState = new RecordedWorldState();
-            ConfigurationSection blocksSection = section.getConfigurationSection("blocks");
-            if (blocksSection != null) {
-                for (String key : blocksSection.getKeys(false)) {
-                    ConfigurationSection bs = blocksSection.getConfigurationSection(key);
-                    if (bs == null) continue;
-                    RecordedBlockState rbs = RecordedBlockState.load(bs);
-                    worldState.blockStateMap.put(key, rbs);
+    private void requireUnloaded(String name) throws IOException {
+        if (isWorldLoaded(name)) throw new IOException("World is loaded: " + name);
+    }
+    private Path worldRoot(String name) { return plugin.getServer().getWorldContainer().toPath().resolve(name); }
+    private Path levelDat(String name)  { return worldRoot(name).resolve("level.dat"); }
+
+    private File captureFile(World world) {
+        return captureFile(world.getName());
+    }
+
+    private File captureFile(String name) {
+        return new File(plugin.getDataFolder(), "captures/" + name + RecordedWorldStateFile.EXTENSION);
+    }
+
+    /**
+     * Restore the capture saved for a world, resuming capture if it was active.
+     */
+    private void loadCapture(World world) {
+        File file = captureFile(world);
+        if (!file.exists() || recordState.containsKey(world)) return;
+
+        try {
+            RecordedWorldStateFile.Contents contents = RecordedWorldStateFile.read(file);
+            recordState.put(world, contents.state());
+            if (contents.capturing()) {
+                List<SCRegion> regions = new ArrayList<>();
+                for (String region : contents.regions()) {
+                    regions.add(SCRegion.deserialize(region, world));
                 }
+                recordActive.put(world, CaptureScope.of(regions));
             }
-            return worldState;
+            plugin.log("World {name}: Restored capture of {count} blocks", "name", world.getName(),
+                    "count", String.valueOf(contents.state().getBlockCount()));
+        } catch (IOException | RuntimeException e) {
+            plugin.warn("Could not load the capture for world {name}", e, "name", world.getName());
         }
+    }
 
-        public void rollback(World world) {
-            // remove tracked entities
-            for (UUID id : spawnedEntities) {
-                Entity e = world.getEntity(id);
-                if (e != null && !e.isDead()) {
-                    e.remove();
+    /**
+     * Save a capture if it changed, writing on an async task unless the server is stopping.
+     * An empty capture removes the file.
+     */
+    private void saveCapture(World world, RecordedWorldState state, boolean async) {
+        CompletableFuture<Void> pending = saves.get(world);
+        if (pending != null && !pending.isDone()) {
+            if (async) return;
+            pending.join();
+        }
+        if (!state.isDirty()) return;
+
+        File file = captureFile(world);
+        CaptureScope scope = recordActive.get(world);
+        RecordedWorldState.Snapshot snapshot = state.snapshot(scope != null,
+                scope == null ? List.of() : scope.getRegions().stream().map(SCRegion::serialize).toList());
+        Runnable write = () -> {
+            try {
+                if (snapshot.isEmpty()) {
+                    Files.deleteIfExists(file.toPath());
+                } else {
+                    Files.createDirectories(file.toPath().getParent());
+                    RecordedWorldStateFile.write(snapshot, file);
                 }
+            } catch (IOException e) {
+                state.markDirty();
+                plugin.warn("Could not save the capture for world {name}", e, "name", world.getName());
             }
-            spawnedEntities.clear();
-
-            // rollback blocks
-            Iterator<Map.Entry<String, RecordedBlockState>> it = blockStateMap.entrySet().iterator();
+        };
 
-            while (it.hasNext()) {
-                Map.Entry<String, RecordedBlockState> entry = it.next();
+        if (async) {
+            saves.put(world, CompletableFuture.runAsync(write, r -> Bukkit.getScheduler().runTaskAsynchronously(plugin, r)));
+        } else {
+            write.run();
+        }
+    }
 
-                String[] locParts = entry.getKey().split(",");
-                if (locParts.length == 3) {
-                    int x = Integer.parseInt(locParts[0]);
-                    int y = Integer.parseInt(locParts[1]);
-                    int z = Integer.parseInt(locParts[2]);
+    @Override
+    public boolean isCapturing(World world) {
+        return recordActive.containsKey(world);
+    }
 
-                    int cx = x >> 4;
-                    int cz = z >> 4;
+    @Override
+    public boolean isCapturing(Location location) {
+        CaptureScope scope = recordActive.get(location.getWorld());
+        return scope != null && scope.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
 
-                    // Load chunk if needed
-                    if (!world.isChunkLoaded(cx, cz)) {
-                        world.getChunkAt(cx, cz); // loads the chunk
-                    }
+    @Override
+    public List<SCRegion> getCaptureRegions(World world) {
+        CaptureScope scope = recordActive.get(world);
+        return scope == null ? List.of() : scope.getRegions();
+    }
 
-                    Location loc = new Location(world, x, y, z);
-                    entry.getValue().restore(loc, false);
-                }
+    @Override
+    public void captureStart(World world) {
+        if(!isCapturing(world)) {
+            captureStart(world, List.of());
+        }
+    }
 
-                it.remove(); // clears as we go
+    @Override
+    public void captureStart(World world, List<SCRegion> regions) {
+        for (SCRegion region : regions) {
+            if (!world.equals(region.getWorld())) {
+                throw new IllegalArgumentException("Region is not in world " + world.getName());
             }
         }
+
+        recordActive.put(world, CaptureScope.of(regions));
+        recordState.computeIfAbsent(world, w -> new RecordedWorldState()).markDirty();
     }
 
-    static class RecordedBlockState {
-        Material type;
-        String data;
-        ItemStack[] inventoryContents;
+    @Override
+    public void captureStop(World world) {
+        if (recordActive.remove(world) != null) {
+            recordState.get(world).markDirty();
+        }
+    }
 
-        RecordedBlockState(Block block) {
-            type = block.getType();
-            data = block.getBlockData().getAsString();
-            if (block.getState() instanceof Container container) {
-                this.inventoryContents = container.getInventory().getContents();
-            }
+    @Override
+    public CompletableFuture<Integer> captureRollback(World world) {
+        WorldRollbackJob running = rollbacks.get(world);
+        if (running != null) {
+            return running.future();
         }
 
-        RecordedBlockState(Material type, String data, ItemStack[] inventoryContents) {
-            this.type = type;
-            this.data = data;
-            this.inventoryContents = inventoryContents;
+        RecordedWorldState worldState = recordState.get(world);
+        if (worldState == null) {
+            return CompletableFuture.completedFuture(0);
         }
 
-        RecordedBlockState(BlockState state) {
-            type = state.getType();
-            data = state.getBlockData().getAsString();
+        return startRollback(world, worldState, 0);
+    }
 
-            if (state instanceof Container container) {
-                ItemStack[] contents = container.getInventory().getContents();
-                inventoryContents = Arrays.stream(contents)
-                        .map(item -> item == null ? null : item.clone())
-                        .toArray(ItemStack[]::new);
-            } else if (state instanceof Campfire campfire) {
-                int size = campfire.getSize();
-                inventoryContents = new ItemStack[size];
-                for (int i = 0; i < size; i++) {
-                    ItemStack item = campfire.getItem(i);
-                    inventoryContents[i] = (item == null ? null : item.clone());
-                }
-            }
+    @Override
+    public CompletableFuture<Integer> captureRollback(World world, String checkpoint) {
+        WorldRollbackJob running = rollbacks.get(world);
+        if (running != null) {
+            return running.future();
         }
 
-        void save(ConfigurationSection section) {
-            section.set("type", type.name());
-            section.set("data", data);
-            if (inventoryContents != null) {
-                section.set("inventory", Arrays.asList(inventoryContents)); // ItemStack is serialisable
-            }
+        RecordedWorldState worldState = recordState.get(world);
+        int index = worldState == null ? -1 : worldState.getCheckpointIndex(checkpoint);
+        if (index < 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown checkpoint " + checkpoint));
         }
 
-        static RecordedBlockState load(ConfigurationSection section) {
-            String typeName = section.getString("type");
-            Material type = typeName != null ? Material.matchMaterial(typeName) : Material.AIR;
-            String data = section.getString("data", "minecraft:air");
+        return startRollback(world, worldState, index);
+    }
 
-            List<?> list = section.getList("inventory");
-            ItemStack[] inventory = null;
-            if (list != null) {
-                inventory = list.stream()
-                        .map(o -> (ItemStack) o)
-                        .toArray(ItemStack[]::new);
-            }
-            return new RecordedBlockState(type, data, inventory);
-        }
-
-        public void restore(Location location, boolean applyPhysics) {
-            Block block = location.getBlock();
-
-            Material savedType = this.type;
-
-            // Just restore what we recorded
-            block.setType(savedType, applyPhysics);
-            BlockData data = Bukkit.createBlockData(this.data);
-            block.setBlockData(data, applyPhysics);
-
-            if (inventoryContents != null) {
-                org.bukkit.block.BlockState state = block.getState();
-                if (state instanceof org.bukkit.block.Container container) {
-                    int invSize = container.getInventory().getSize();
-                    ItemStack[] toApply = new ItemStack[invSize];
-                    int copyLen = Math.min(invSize, inventoryContents.length);
-                    System.arraycopy(inventoryContents, 0, toApply, 0, copyLen);
-
-                    container.getInventory().clear();
-                    container.getInventory().setContents(toApply);
-                } else if (state instanceof Campfire campfire) {
-                    int size = campfire.getSize();
-                    for (int i = 0; i < size; i++) {
-                        ItemStack item = (i < inventoryContents.length ? inventoryContents[i] : null);
-                        campfire.setItem(i, item == null ? null : item.clone());
-                    }
-                    campfire.update(true, applyPhysics);
+    private CompletableFuture<Integer> startRollback(World world, RecordedWorldState worldState, int checkpoint) {
+        // blocks changed while restoring would be captured into a layer being rolled back
+        CaptureScope scope = recordActive.remove(world);
+        WorldRollbackJob job = new WorldRollbackJob(plugin, world, worldState, checkpoint,
+                plugin.config().getLong("world_capture.rollback.tick_budget_ms", 10),
+                plugin.config().getInt("world_capture.rollback.preload_chunks", 8));
+        rollbacks.put(world, job);
+        job.future().whenComplete((count, ex) -> rollbacks.remove(world, job));
+        if (scope != null) {
+            job.future().whenComplete((count, ex) -> Bukkit.getScheduler().runTask(plugin, () -> {
+                if (recordState.get(world) == worldState && !isCapturing(world)) {
+                    captureStart(world, scope.getRegions());
                 }
-            }
+            }));
         }
-    }
+        job.start();
 
-    @Override
-    public boolean isCapturing(World world) {
-        return recordActive.contains(world);
+        return job.future();
     }
 
     @Override
-    public void captureStart(World world) {
-        if(!isCapturing(world)) {
-            recordActive.add(world);
-            recordState.putIfAbsent(world, new RecordedWorldState());
-        }
+    public boolean captureCheckpoint(World world, String name) {
+        return isCapturing(world) && !rollbacks.containsKey(world) && recordState.get(world).checkpoint(name);
     }
 
     @Override
-    public void captureStop(World world) {
-        recordActive.remove(world);
+    public List<String> getCaptureCheckpoints(World world) {
+        RecordedWorldState worldState = recordState.get(world);
+        return worldState == null ? List.of() : worldState.getCheckpoints();
     }
 
     @Override
-    public void captureRollback(World world) {
-        if(isCapturing(world)) {
-            recordState.get(world).rollback(world);
-        }
+    public Optional<WorldRollback> getRollback(World world) {
+        return Optional.ofNullable(rollbacks.get(world));
     }
 
     @Override
@@ -646,15 +1015,30 @@ public class WorldManager implements WorldService {
         }
     }
 
+    @Override
+    public void capture(Block block) {
+        World world = block.getWorld();
+        CaptureScope scope = recordActive.get(world);
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+
+        // skip the block state copy when the position is out of scope or already captured
+        if (scope == null || !scope.contains(x, y, z) || recordState.get(world).isRecorded(x, y, z)) return;
+
+        capture(block.getState());
+    }
+
     @Override
     public void capture(BlockState state) {
         World world = state.getWorld();
-        if (!isCapturing(world)) return;
+        CaptureScope scope = recordActive.get(world);
+        if (scope == null || !scope.contains(state.getX(), state.getY(), state.getZ())) return;
 
         RecordedWorldState worldState = recordState.get(world);
 
-        // Always record the original state at this position
-        worldState.recordBlock(state);
+        // Always record the original state at this position, its partners were recorded with it
+        if (!worldState.recordBlock(state)) return;
 
         Material type = state.getType();
         Block block = state.getBlock();
@@ -695,7 +1079,7 @@ public class WorldManager implements WorldService {
     @Override
     public void capture(Entity entity) {
         World world = entity.getWorld();
-        if (!isCapturing(world)) return;
+        if (!isCapturing(entity.getLocation())) return;
 
         recordState.get(world).recordEntity(entity);
     }
@@ -730,39 +1114,32 @@ public class WorldManager implements WorldService {
         return type != null && type.name().endsWith("CHEST");
     }
 
+    /**
+     * Capture the block an inventory belongs to, if it is block-backed. The position checks in
+     * {@link #capture(Block)} run before any block state or inventory is copied, as hoppers
+     * can call this thousands of times a second.
+     */
     private void recordInventoryContainer(org.bukkit.inventory.Inventory inv) {
-        InventoryHolder holder = inv.getHolder();
-
-        Block block = inv.getLocation().getBlock();
-        String type = block.getType().toString();
-        String loc = block.getX() + "," + block.getY() + "," + block.getZ();
-
-        // Prefer the real container inventory for logging, not the event snapshot
-        String items;
-        BlockState blockState = block.getState();
-        if (blockState instanceof Container container) {
-            items = SCText.toString(container.getInventory());
-        } else {
-            items = SCText.toString(inv);
-        }
-
-        // Single chest / barrel / etc
-        if (holder instanceof BlockState state) {
-            capture(state); // snapshots once per location
+        // Double chest
+        if (inv instanceof DoubleChestInventory doubleChest) {
+            recordInventoryContainer(doubleChest.getLeftSide());
+            recordInventoryContainer(doubleChest.getRightSide());
             return;
         }
 
-        // Double chest
-        if (holder instanceof org.bukkit.block.DoubleChest dc) {
-            InventoryHolder left = dc.getLeftSide();
-            InventoryHolder right = dc.getRightSide();
+        Location location = inv.getLocation();
+        if (location == null || location.getWorld() == null) return;
 
-            if (left instanceof BlockState ls) {
-                capture(ls);
-            }
-            if (right instanceof BlockState rs) {
-                capture(rs);
-            }
+        World world = location.getWorld();
+        CaptureScope scope = recordActive.get(world);
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        if (scope == null || !scope.contains(x, y, z) || recordState.get(world).isRecorded(x, y, z)) return;
+
+        // Single chest / barrel / etc, but not minecarts and other entities
+        if (inv.getHolder(false) instanceof BlockState) {
+            capture(location.getBlock());
         }
     }
 }
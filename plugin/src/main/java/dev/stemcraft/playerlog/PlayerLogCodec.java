@@ -0,0 +1,314 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Binary encoding of {@link PlayerLogEntry} segments.
+ * <p>
+ * A segment is a short header followed by frames. Strings (world and subject names) and player
+ * UUIDs are interned per segment: the first use writes a definition frame and later entries
+ * refer to it by id. Entry frames store the time as a delta from the previous entry and the
+ * block position packed into one long, so a typical entry is 10 to 20 bytes.
+ * <p>
+ * A torn trailing frame (crash mid-write) is ignored by the reader and truncated before the
+ * segment is appended to again.
+ */
+public final class PlayerLogCodec {
+    static final int MAGIC = 0x5343504C; // SCPL
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = 5;
+
+    private static final int FRAME_STRING = 1;
+    private static final int FRAME_PLAYER = 2;
+    private static final int FRAME_ENTRY = 3;
+
+    private static final int FLAG_LOCATION = 1;
+    private static final int FLAG_SUBJECT = 1 << 1;
+    private static final int FLAG_AMOUNT = 1 << 2;
+    private static final int FLAG_DETAIL = 1 << 3;
+    private static final int FLAG_PLACEHOLDERS = 1 << 4;
+    private static final int FLAG_RAW = 1 << 5;
+
+    private static final PlayerLogAction[] ACTIONS = PlayerLogAction.values();
+
+    private PlayerLogCodec() { }
+
+    /**
+     * Intern tables and time base for appending to one segment.
+     */
+    public static class State {
+        final Map<String, Integer> strings = new HashMap<>();
+        final Map<UUID, Integer> players = new HashMap<>();
+        long lastTime = 0;
+        long length = 0;
+    }
+
+    public static void writeHeader(OutputStream out) throws IOException {
+        out.write(MAGIC >>> 24);
+        out.write(MAGIC >>> 16);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    /**
+     * Encode an entry, writing any string or player definitions it needs first.
+     */
+    public static void encode(PlayerLogEntry entry, State state, OutputStream out) throws IOException {
+        int player = intern(state.players, entry.playerId, out, FRAME_PLAYER);
+        int world = entry.world != null ? intern(state.strings, entry.world, out, FRAME_STRING) : -1;
+        int subject = entry.subject != null ? intern(state.strings, entry.subject, out, FRAME_STRING) : -1;
+
+        int flags = 0;
+        if (entry.world != null) flags |= FLAG_LOCATION;
+        if (entry.subject != null) flags |= FLAG_SUBJECT;
+        if (entry.amount != 0) flags |= FLAG_AMOUNT;
+        if (entry.detail != null) flags |= FLAG_DETAIL;
+        if (entry.placeholders != null) flags |= FLAG_PLACEHOLDERS;
+        if (entry.raw) flags |= FLAG_RAW;
+
+        out.write(FRAME_ENTRY);
+        writeVarLong(out, zigzag(entry.time - state.lastTime));
+        out.write(entry.action.ordinal());
+        out.write(flags);
+        writeVarLong(out, player);
+
+        if (world >= 0) {
+            writeVarLong(out, world);
+            writeVarLong(out, zigzag(entry.position));
+        }
+        if (subject >= 0) writeVarLong(out, subject);
+        if (entry.amount != 0) writeVarLong(out, zigzag(entry.amount));
+        if (entry.detail != null) writeString(out, entry.detail);
+        if (entry.placeholders != null) {
+            writeVarLong(out, entry.placeholders.length);
+            for (String placeholder : entry.placeholders) {
+                writeString(out, placeholder == null ? "" : placeholder);
+            }
+        }
+
+        state.lastTime = entry.time;
+    }
+
+    /**
+     * Decode every complete entry in a segment. Returns the state needed to append to it, whose
+     * length is the end of the last complete frame.
+     */
+    public static State decode(File segment, String playerName, Consumer<PlayerLogEntry> consumer) throws IOException {
+        State state = new State();
+
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            try {
+                DataInputStream data = new DataInputStream(in);
+                if (data.readInt() != MAGIC || data.readByte() != VERSION) {
+                    throw new IOException("Not a player log segment: " + segment);
+                }
+            } catch (EOFException e) {
+                return state; // empty or torn header, rewritten on next append
+            }
+            state.length = HEADER_LENGTH;
+
+            decodeFrames(in, playerName, state, consumer);
+        }
+
+        return state;
+    }
+
+    /**
+     * Decode a headerless run of frames written with a fresh {@link State}, such as a block of a
+     * compressed segment. Returns the number of bytes holding complete frames.
+     */
+    static long decodeBlock(byte[] block, String playerName, Consumer<PlayerLogEntry> consumer) throws IOException {
+        State state = new State();
+        decodeFrames(new CountingInputStream(new ByteArrayInputStream(block)), playerName, state, consumer);
+        return state.length;
+    }
+
+    private static void decodeFrames(CountingInputStream in, String playerName, State state,
+                                     Consumer<PlayerLogEntry> consumer) throws IOException {
+        List<String> strings = new ArrayList<>();
+        List<UUID> players = new ArrayList<>();
+
+        int type;
+        while ((type = in.read()) != -1) {
+            try {
+                switch (type) {
+                    case FRAME_STRING -> {
+                        String value = readString(in);
+                        state.strings.put(value, strings.size());
+                        strings.add(value);
+                    }
+                    case FRAME_PLAYER -> {
+                        UUID value = new UUID(readLong(in), readLong(in));
+                        state.players.put(value, players.size());
+                        players.add(value);
+                    }
+                    case FRAME_ENTRY -> {
+                        long time = state.lastTime + unzigzag(readVarLong(in));
+                        PlayerLogAction action = ACTIONS[readByte(in)];
+                        int flags = readByte(in);
+                        UUID playerId = players.get((int) readVarLong(in));
+
+                        String world = null;
+                        long position = 0;
+                        if ((flags & FLAG_LOCATION) != 0) {
+                            world = strings.get((int) readVarLong(in));
+                            position = unzigzag(readVarLong(in));
+                        }
+
+                        String subject = (flags & FLAG_SUBJECT) != 0 ? strings.get((int) readVarLong(in)) : null;
+                        int amount = (flags & FLAG_AMOUNT) != 0 ? (int) unzigzag(readVarLong(in)) : 0;
+                        String detail = (flags & FLAG_DETAIL) != 0 ? readString(in) : null;
+
+                        String[] placeholders = null;
+                        if ((flags & FLAG_PLACEHOLDERS) != 0) {
+                            placeholders = new String[(int) readVarLong(in)];
+                            for (int i = 0; i < placeholders.length; i++) {
+                                placeholders[i] = readString(in);
+                            }
+                        }
+
+                        state.lastTime = time;
+                        consumer.accept(new PlayerLogEntry(time, playerId, playerName, action, world, position,
+                                subject, amount, detail, placeholders, (flags & FLAG_RAW) != 0));
+                    }
+                    default -> throw new IOException("Unknown frame type " + type);
+                }
+            } catch (IOException | IndexOutOfBoundsException e) {
+                break; // torn or corrupt tail
+            }
+
+            state.length = in.position;
+        }
+    }
+
+    private static <T> int intern(Map<T, Integer> table, T value, OutputStream out, int frame) throws IOException {
+        Integer id = table.get(value);
+        if (id != null) return id;
+
+        id = table.size();
+        table.put(value, id);
+
+        out.write(frame);
+        if (value instanceof UUID uuid) {
+            writeLong(out, uuid.getMostSignificantBits());
+            writeLong(out, uuid.getLeastSignificantBits());
+        } else {
+            writeString(out, (String) value);
+        }
+
+        return id;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeLong(OutputStream out, long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static long readLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | readByte(in);
+        }
+        return value;
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) throw new EOFException();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long position = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed, read only form of a past day segment.
+ * <p>
+ * Entries are encoded with {@link PlayerLogCodec} into blocks of roughly {@link #BLOCK_SIZE}
+ * bytes, each starting with fresh intern tables so it can be decoded on its own, and each block
+ * is deflated separately. A block table at the end of the file records the offset, size, entry
+ * count and time range of every block, so a reader can seek straight to the blocks that overlap
+ * the time range it wants instead of inflating the whole day.
+ * <pre>
+ * header:  int MAGIC, byte VERSION
+ * block:   int rawLength, int compressedLength, int crc32, byte[compressedLength]
+ * table:   int blocks, then per block long offset, int entries, long firstTime, long lastTime
+ * footer:  long tableOffset, long sourceLength, int MAGIC
+ * </pre>
+ * The source length is the length of the hot segment merged into this file, so a hot segment
+ * left behind by a crash between replacing the cold file and deleting the hot one is recognised
+ * as already merged.
+ */
+public final class PlayerLogColdSegment {
+    static final int MAGIC = 0x5343505A; // SCPZ
+    static final byte VERSION = 1;
+    static final int BLOCK_SIZE = 64 * 1024;
+    private static final int FOOTER_LENGTH = 20;
+
+    private PlayerLogColdSegment() { }
+
+    /**
+     * Location and time range of one compressed block.
+     */
+    record Block(long offset, int entries, long firstTime, long lastTime) { }
+
+    /**
+     * Streams entries into a new cold segment. Blocks are flushed as they fill, so only one
+     * uncompressed block is held in memory at a time.
+     */
+    public static class Writer implements Closeable {
+        private final FileOutputStream file;
+        private final DataOutputStream out;
+        private final List<Block> blocks = new ArrayList<>();
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private PlayerLogCodec.State state = new PlayerLogCodec.State();
+        private long position;
+        private int entries = 0;
+        private long firstTime = 0;
+        private long lastTime = 0;
+        private long sourceLength = -1;
+
+        public Writer(File target) throws IOException {
+            file = new FileOutputStream(target);
+            out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            position = PlayerLogCodec.HEADER_LENGTH;
+        }
+
+        public void add(PlayerLogEntry entry) throws IOException {
+            if (entries == 0) firstTime = entry.time();
+            PlayerLogCodec.encode(entry, state, block);
+            lastTime = entry.time();
+            entries++;
+
+            if (block.size() >= BLOCK_SIZE) {
+                flushBlock();
+            }
+        }
+
+        /**
+         * Record the length of the hot segment being merged into this file.
+         */
+        public void setSourceLength(long sourceLength) {
+            this.sourceLength = sourceLength;
+        }
+
+        /**
+         * Returns the number of entries written so far.
+         */
+        public int count() {
+            int total = entries;
+            for (Block b : blocks) total += b.entries();
+            return total;
+        }
+
+        private void flushBlock() throws IOException {
+            if (entries == 0) return;
+
+            byte[] raw = block.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(raw);
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4);
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+
+            blocks.add(new Block(position, entries, firstTime, lastTime));
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            out.writeInt((int) crc.getValue());
+            compressed.writeTo(out);
+            position += 12 + compressed.size();
+
+            block.reset();
+            state = new PlayerLogCodec.State();
+            entries = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+
+                long tableOffset = position;
+                out.writeInt(blocks.size());
+                for (Block b : blocks) {
+                    out.writeLong(b.offset());
+                    out.writeInt(b.entries());
+                    out.writeLong(b.firstTime());
+                    out.writeLong(b.lastTime());
+                }
+                out.writeLong(tableOffset);
+                out.writeLong(sourceLength);
+                out.writeInt(MAGIC);
+                out.flush();
+                file.getFD().sync();
+            } finally {
+                deflater.end();
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the hot segment that was merged into the file, or -1 if none was.
+     */
+    public static long getSourceLength(File segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            if (file.length() < PlayerLogCodec.HEADER_LENGTH + FOOTER_LENGTH) {
+                throw new IOException("Not a compressed player log segment: " + segment);
+            }
+
+            file.seek(file.length() - FOOTER_LENGTH + 8);
+            return file.readLong();
+        }
+    }
+
+    /**
+     * Read every entry in the segment.
+     */
+    public static void read(File segment, String playerName, Consumer<PlayerLogEntry> consumer) throws IOException {
+        read(segment, playerName, Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Read the entries of every block overlapping {@code fromTime} to {@code toTime} (epoch
+     * millis, inclusive). Entries outside the range may still be passed to the consumer when
+     * they share a block with ones inside it.
+     */
+    public static void read(File segment, String playerName, long fromTime, long toTime,
+                            Consumer<PlayerLogEntry> consumer) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            if (file.length() < PlayerLogCodec.HEADER_LENGTH + FOOTER_LENGTH
+                    || file.readInt() != MAGIC || file.readByte() != VERSION) {
+                throw new IOException("Not a compressed player log segment: " + segment);
+            }
+
+            file.seek(file.length() - FOOTER_LENGTH);
+            long tableOffset = file.readLong();
+            file.readLong(); // source length
+            if (file.readInt() != MAGIC || tableOffset < PlayerLogCodec.HEADER_LENGTH || tableOffset > file.length()) {
+                throw new IOException("Corrupt compressed player log segment: " + segment);
+            }
+
+            file.seek(tableOffset);
+            int count = file.readInt();
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(file.readLong(), file.readInt(), file.readLong(), file.readLong()));
+            }
+
+            Inflater inflater = new Inflater();
+            try {
+                for (Block block : blocks) {
+                    if (block.lastTime() < fromTime || block.firstTime() > toTime) continue;
+
+                    file.seek(block.offset());
+                    byte[] raw = new byte[file.readInt()];
+                    byte[] compressed = new byte[file.readInt()];
+                    int crc = file.readInt();
+                    file.readFully(compressed);
+
+                    inflater.reset();
+                    inflater.setInput(compressed);
+                    try {
+                        int n = 0;
+                        while (n < raw.length && !inflater.finished()) {
+                            int read = inflater.inflate(raw, n, raw.length - n);
+                            if (read == 0 && inflater.needsInput()) break;
+                            n += read;
+                        }
+                        if (n != raw.length) {
+                            throw new IOException("Short block in " + segment);
+                        }
+                    } catch (DataFormatException e) {
+                        throw new IOException("Corrupt block in " + segment, e);
+                    }
+
+                    CRC32 check = new CRC32();
+                    check.update(raw);
+                    if ((int) check.getValue() != crc) {
+                        throw new IOException("Block checksum mismatch in " + segment);
+                    }
+
+                    PlayerLogCodec.decodeBlock(raw, playerName, consumer);
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
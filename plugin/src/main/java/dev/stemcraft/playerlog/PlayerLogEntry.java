@@ -0,0 +1,143 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+import dev.stemcraft.api.services.playerlog.PlayerLogQuery;
+import dev.stemcraft.api.services.playerlog.PlayerLogRecord;
+import dev.stemcraft.api.utils.SCPosition;
+import dev.stemcraft.api.utils.SCText;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A typed player log entry as captured by the event handlers.
+ * <p>
+ * Entries only hold references to values the event already has (enum names, world names,
+ * coordinates) so creating one on the main thread is a single allocation. The human readable
+ * message is only built by {@link #format()} when the log is read or exported.
+ */
+public final class PlayerLogEntry {
+    public static final UUID SERVER_UUID = new UUID(0L, 0L);
+    public static final String SERVER_NAME = "_SERVER_";
+
+    final long time;
+    final UUID playerId;
+    final String playerName;
+    final PlayerLogAction action;
+    final String world;
+    final long position;
+    final String subject;
+    final int amount;
+    final String detail;
+    final String[] placeholders;
+    final boolean raw;
+
+    PlayerLogEntry(long time, UUID playerId, String playerName, PlayerLogAction action, String world, long position,
+                   String subject, int amount, String detail, String[] placeholders, boolean raw) {
+        this.time = time;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.action = action;
+        this.world = world;
+        this.position = position;
+        this.subject = subject;
+        this.amount = amount;
+        this.detail = detail;
+        this.placeholders = placeholders;
+        this.raw = raw;
+    }
+
+    /**
+     * Create an entry for an action.
+     *
+     * @param world   The world name, or null if the action has no location
+     * @param subject The material, item or entity type name the action was on, may be null
+     * @param amount  The item count, or 0 if not relevant
+     * @param detail  Free text for the action such as a chat message, may be null
+     */
+    public static PlayerLogEntry of(UUID playerId, String playerName, PlayerLogAction action,
+                                    String world, int x, int y, int z,
+                                    String subject, int amount, String detail) {
+        return new PlayerLogEntry(System.currentTimeMillis(), playerId, playerName, action,
+                world, world == null ? 0 : SCPosition.pack(x, y, z), subject, amount, detail, null, false);
+    }
+
+    /**
+     * Create an entry from a message template. Placeholders are only applied when the entry is read.
+     */
+    public static PlayerLogEntry ofTemplate(UUID playerId, String playerName, String template, String... placeholders) {
+        return new PlayerLogEntry(System.currentTimeMillis(), playerId, playerName, PlayerLogAction.fromMessage(template),
+                null, 0, null, 0, template, placeholders != null && placeholders.length > 0 ? placeholders : null, true);
+    }
+
+    public long time() { return time; }
+    public String playerName() { return playerName; }
+    public PlayerLogAction action() { return action; }
+    public boolean hasLocation() { return world != null; }
+    public int x() { return SCPosition.unpackX(position); }
+    public int y() { return SCPosition.unpackY(position); }
+    public int z() { return SCPosition.unpackZ(position); }
+
+    public boolean matches(PlayerLogQuery query) {
+        return query.matches(playerName, action, time, world, x(), y(), z());
+    }
+
+    /**
+     * Build the log message text.
+     */
+    public String format() {
+        if (raw) {
+            return placeholders == null ? detail : SCText.placeholders(detail, placeholders);
+        }
+
+        StringBuilder sb = new StringBuilder(action.label());
+        switch (action) {
+            case JOIN -> sb.append(" - UUID: ").append(playerId);
+            case PRIMED_TNT, PORTAL_CREATE -> {
+                if (detail != null) sb.append(' ').append(detail);
+                return sb.toString();
+            }
+            default -> { }
+        }
+
+        boolean separated = false;
+        if (subject != null) {
+            sb.append(": ").append(subject);
+            separated = true;
+            if (amount > 0) sb.append(" x").append(amount);
+        }
+
+        if (detail != null) {
+            sb.append(separated ? " " : ": ").append(detail);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Convert to the API record, formatting the message.
+     */
+    public PlayerLogRecord toRecord() {
+        return new PlayerLogRecord(Instant.ofEpochMilli(time), playerId, playerName, action,
+                world, x(), y(), z(), format());
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports player logs to gzip compressed CSV files for offline analysis.
+ * <p>
+ * Each completed day is written to {@code player_logs-yyyy-MM-dd.csv.gz} with the fixed
+ * {@link #HEADER} columns, grouped by player. The last exported day is kept in a checkpoint
+ * file so each run only exports the days completed since the last one. Rows are streamed
+ * from the store straight into the compressed file, so memory use does not depend on the
+ * number of rows.
+ */
+public class PlayerLogExporter {
+    public static final String HEADER = "time,uuid,player,action,world,x,y,z,subject,amount,detail,message";
+    private static final String FILE_PREFIX = "player_logs-";
+    private static final String FILE_EXTENSION = ".csv.gz";
+    private static final String CHECKPOINT_FILE = "player_logs.checkpoint";
+
+    /**
+     * Outcome of an export run.
+     *
+     * @param files      The files written, oldest day first
+     * @param rows       Number of rows written
+     * @param checkpoint The last day that has been exported, or null if none has
+     */
+    public record Result(List<File> files, long rows, LocalDate checkpoint) { }
+
+    private final PlayerLogStore store;
+    private final File directory;
+
+    public PlayerLogExporter(PlayerLogStore store, File directory) {
+        this.store = store;
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the export file for a day, or null if the name is not an export file.
+     */
+    public File getFile(String name) {
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_EXTENSION)) return null;
+
+        try {
+            LocalDate day = LocalDate.parse(name.substring(FILE_PREFIX.length(), name.length() - FILE_EXTENSION.length()));
+            return getFile(day);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public File getFile(LocalDate day) {
+        return new File(directory, FILE_PREFIX + day + FILE_EXTENSION);
+    }
+
+    /**
+     * The last day exported, or null if nothing has been exported yet.
+     */
+    public LocalDate getCheckpoint() throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        if (!file.exists()) return null;
+
+        try {
+            return LocalDate.parse(Files.readString(file.toPath(), StandardCharsets.UTF_8).trim());
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid export checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Export every day after the checkpoint and before today. The checkpoint is moved forward
+     * after each day, so an interrupted run continues from the last complete day.
+     */
+    public synchronized Result export() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create export directory " + directory);
+        }
+
+        LocalDate checkpoint = getCheckpoint();
+        LocalDate today = LocalDate.now();
+        List<File> files = new ArrayList<>();
+        long rows = 0;
+
+        for (LocalDate day : store.getDays()) {
+            if (!day.isBefore(today)) break;
+            if (checkpoint != null && !day.isAfter(checkpoint)) continue;
+
+            File file = getFile(day);
+            rows += exportDay(day, file);
+            files.add(file);
+
+            checkpoint = day;
+            saveCheckpoint(checkpoint);
+        }
+
+        return new Result(files, rows, checkpoint);
+    }
+
+    private long exportDay(LocalDate day, File file) throws IOException {
+        File temp = new File(directory, file.getName() + ".tmp");
+        long[] rows = { 0 };
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(temp), 64 * 1024), StandardCharsets.UTF_8))) {
+            out.write(HEADER);
+            out.write('\n');
+
+            StringBuilder row = new StringBuilder(256);
+            try {
+                store.readDay(day, entry -> {
+                    row.setLength(0);
+                    appendRow(row, entry);
+                    try {
+                        out.append(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return rows[0];
+    }
+
+    private void saveCheckpoint(LocalDate day) throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        File temp = new File(directory, CHECKPOINT_FILE + ".tmp");
+
+        Files.writeString(temp.toPath(), day.toString(), StandardCharsets.UTF_8);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void appendRow(StringBuilder row, PlayerLogEntry entry) {
+        row.append(Instant.ofEpochMilli(entry.time)).append(',')
+                .append(entry.playerId).append(',');
+        appendField(row, entry.playerName);
+        row.append(',').append(entry.action.name()).append(',');
+
+        if (entry.hasLocation()) {
+            appendField(row, entry.world);
+            row.append(',').append(entry.x()).append(',').append(entry.y()).append(',').append(entry.z());
+        } else {
+            row.append(",,,");
+        }
+
+        row.append(',');
+        appendField(row, entry.subject);
+        row.append(',');
+        if (entry.amount != 0) row.append(entry.amount);
+        row.append(',');
+        appendField(row, entry.detail);
+        row.append(',');
+        appendField(row, entry.format());
+        row.append('\n');
+    }
+
+    private static void appendField(StringBuilder row, String value) {
+        if (value == null) return;
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        row.append('"');
+    }
+}
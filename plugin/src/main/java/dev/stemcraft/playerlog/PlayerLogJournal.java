@@ -0,0 +1,265 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for the pipeline writer.
+ * <p>
+ * Every batch is appended to the journal before it is written to the day segments. Segment
+ * appends are not synced, the journal is, with group commit: one sync covers every batch
+ * written since the last, at most once per sync interval (0 syncs every batch before it reaches
+ * the segments).
+ * <p>
+ * The first time a segment is written to after a checkpoint its length is journaled. Replay
+ * truncates each of those segments back to that length and appends the journaled batches
+ * again, so entries that reached a segment before a crash are not duplicated. A checkpoint
+ * syncs the segments and empties the journal, which keeps replay short.
+ * <pre>
+ * record:  byte type, int length, int crc32, byte[length]
+ * SEGMENT: UTF path relative to the log root, long length
+ * BATCH:   int groups, then per group UTF player name, int length, codec frames
+ * </pre>
+ */
+public class PlayerLogJournal implements Closeable {
+    private static final int RECORD_SEGMENT = 1;
+    private static final int RECORD_BATCH = 2;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+
+    private final File file;
+    private final PlayerLogStore store;
+    private final long syncIntervalMillis;
+    private final long checkpointIntervalMillis;
+    private final long maxBytes;
+    private final Set<File> recorded = new HashSet<>();
+    private FileChannel channel;
+    private long lastSync = 0;
+    private long lastCheckpoint = 0;
+    private boolean unsynced = false;
+
+    /**
+     * @param syncIntervalMillis       Longest a written batch waits to be synced, 0 syncs every batch
+     * @param checkpointIntervalMillis How often the segments are synced and the journal emptied
+     * @param maxBytes                 Journal size that forces an early checkpoint, bounding replay
+     */
+    public PlayerLogJournal(File file, PlayerLogStore store, long syncIntervalMillis,
+                            long checkpointIntervalMillis, long maxBytes) {
+        this.file = file;
+        this.store = store;
+        this.syncIntervalMillis = Math.max(0, syncIntervalMillis);
+        this.checkpointIntervalMillis = Math.max(1000, checkpointIntervalMillis);
+        this.maxBytes = Math.max(1024 * 1024, maxBytes);
+    }
+
+    /**
+     * Replay any batches left from an unclean shutdown into the store, then open the journal
+     * for writing. Returns the number of entries replayed.
+     */
+    public long open() throws IOException {
+        long replayed = file.exists() ? replay() : 0;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        checkpoint();
+        return replayed;
+    }
+
+    /**
+     * Journal a batch grouped by player. Must be called before the batch is appended to the store.
+     */
+    public void append(Map<String, List<PlayerLogEntry>> batch) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+
+        for (Map.Entry<String, List<PlayerLogEntry>> e : batch.entrySet()) {
+            for (Map.Entry<File, Long> segment : store.getSegmentLengths(e.getKey(), e.getValue()).entrySet()) {
+                if (!recorded.add(segment.getKey())) continue;
+
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                DataOutputStream data = new DataOutputStream(payload);
+                data.writeUTF(store.getRelativePath(segment.getKey()));
+                data.writeLong(segment.getValue());
+                writeRecord(records, RECORD_SEGMENT, payload.toByteArray());
+            }
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        data.writeInt(batch.size());
+        for (Map.Entry<String, List<PlayerLogEntry>> e : batch.entrySet()) {
+            frames.reset();
+            PlayerLogCodec.State state = new PlayerLogCodec.State();
+            for (PlayerLogEntry entry : e.getValue()) {
+                PlayerLogCodec.encode(entry, state, frames);
+            }
+
+            data.writeUTF(e.getKey());
+            data.writeInt(frames.size());
+            frames.writeTo(data);
+        }
+        writeRecord(records, RECORD_BATCH, payload.toByteArray());
+
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        unsynced = true;
+        if (syncIntervalMillis == 0) {
+            sync();
+        } else {
+            syncIfDue();
+        }
+    }
+
+    /**
+     * Sync waiting batches once the sync interval has passed, and checkpoint once the checkpoint
+     * interval has passed or the journal has grown past its limit. Called by the writer after
+     * each batch and while idle.
+     */
+    public void tick() throws IOException {
+        if (channel.size() == 0) return;
+
+        if (System.currentTimeMillis() - lastCheckpoint >= checkpointIntervalMillis || channel.size() >= maxBytes) {
+            checkpoint();
+        } else {
+            syncIfDue();
+        }
+    }
+
+    private void syncIfDue() throws IOException {
+        if (unsynced && System.currentTimeMillis() - lastSync >= syncIntervalMillis) {
+            sync();
+        }
+    }
+
+    /**
+     * Sync the segments written since the last checkpoint and empty the journal.
+     */
+    public void checkpoint() throws IOException {
+        store.sync();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        recorded.clear();
+        unsynced = false;
+        lastSync = lastCheckpoint = System.currentTimeMillis();
+    }
+
+    /**
+     * Bytes waiting in the journal since the last checkpoint.
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+
+        try {
+            checkpoint();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        unsynced = false;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private long replay() throws IOException {
+        Map<String, Long> segments = new LinkedHashMap<>();
+        List<byte[]> batches = new ArrayList<>();
+
+        // read every complete record, a torn or corrupt tail was never acknowledged
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int type;
+                byte[] payload;
+                try {
+                    type = in.readByte();
+                    int length = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_LENGTH) break;
+
+                    payload = new byte[length];
+                    int crc = in.readInt();
+                    in.readFully(payload);
+
+                    CRC32 check = new CRC32();
+                    check.update(payload);
+                    if ((int) check.getValue() != crc) break;
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (type == RECORD_SEGMENT) {
+                    DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+                    segments.putIfAbsent(data.readUTF(), data.readLong());
+                } else if (type == RECORD_BATCH) {
+                    batches.add(payload);
+                } else {
+                    break;
+                }
+            }
+        }
+
+        for (Map.Entry<String, Long> segment : segments.entrySet()) {
+            store.truncate(segment.getKey(), segment.getValue());
+        }
+
+        long replayed = 0;
+        for (byte[] payload : batches) {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+            int groups = data.readInt();
+            for (int i = 0; i < groups; i++) {
+                String playerName = data.readUTF();
+                byte[] frames = new byte[data.readInt()];
+                data.readFully(frames);
+
+                List<PlayerLogEntry> entries = new ArrayList<>();
+                PlayerLogCodec.decodeBlock(frames, playerName, entries::add);
+                store.append(playerName, entries);
+                replayed += entries.size();
+            }
+        }
+
+        return replayed;
+    }
+
+    private static void writeRecord(OutputStream out, int type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(type);
+        data.writeInt(payload.length);
+        data.writeInt((int) crc.getValue());
+        data.write(payload);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+import dev.stemcraft.api.utils.SCTime;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per action policy applied to entries before they reach the pipeline, so log volume follows
+ * player activity rather than farm throughput.
+ * <p>
+ * An action's policy can:
+ * <ul>
+ *     <li>sample, keeping each entry with a fixed probability;</li>
+ *     <li>coalesce, holding the first entry for a window and merging identical entries (same
+ *     subject, world and detail) into it, so a window is written as one entry such as
+ *     {@code ITEM PICKUP: COBBLESTONE x640 over 30s};</li>
+ *     <li>cap each player with a token bucket, dropping entries once the bucket is empty.</li>
+ * </ul>
+ * Actions without a policy and raw entries pass straight through. Open windows are written
+ * by {@link #flush(long)} once they close, and by {@link #flush(UUID)} or {@link #flushAll()}
+ * when a player leaves or the plugin is disabled.
+ */
+public class PlayerLogLimiter {
+    private static final PlayerLogAction[] ACTIONS = PlayerLogAction.values();
+
+    /**
+     * Limits for one action.
+     *
+     * @param coalesceMillis Window identical entries are merged over, or 0 to not coalesce
+     * @param sampleRate     Probability an entry is kept, 1 keeps every entry
+     * @param rate           Entries per second each player may write, or 0 for no cap
+     * @param burst          Entries a player may write at once before the rate applies
+     */
+    public record Policy(long coalesceMillis, double sampleRate, double rate, int burst) { }
+
+    private record WindowKey(PlayerLogAction action, String subject, String world, String detail) { }
+
+    private static class Window {
+        final PlayerLogEntry first;
+        final long closes;
+        long last;
+        int count = 1;
+        long amount;
+
+        Window(PlayerLogEntry first, long closes) {
+            this.first = first;
+            this.closes = closes;
+            this.last = first.time;
+            this.amount = weight(first);
+        }
+
+        void add(PlayerLogEntry entry) {
+            last = Math.max(last, entry.time);
+            amount += weight(entry);
+            count++;
+        }
+
+        PlayerLogEntry toEntry() {
+            if (count == 1) return first;
+
+            // entries without an item count are counted as one each
+            String over = "over " + SCTime.formatDuration(Math.max(1, (last - first.time + 999) / 1000));
+            return new PlayerLogEntry(first.time, first.playerId, first.playerName, first.action, first.world,
+                    first.position, first.subject, (int) Math.min(Integer.MAX_VALUE, amount),
+                    first.detail == null ? over : first.detail + " " + over, null, false);
+        }
+
+        private static int weight(PlayerLogEntry entry) {
+            return entry.amount == 0 ? 1 : entry.amount;
+        }
+    }
+
+    private static class Bucket {
+        double tokens;
+        long refilled;
+
+        Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.refilled = now;
+        }
+
+        boolean tryAcquire(Policy policy, long now) {
+            if (now > refilled) {
+                tokens = Math.min(policy.burst(), tokens + (now - refilled) / 1000.0 * policy.rate());
+                refilled = now;
+            }
+
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    private static class PlayerState {
+        final Map<WindowKey, Window> windows = new HashMap<>();
+        final Map<PlayerLogAction, Bucket> buckets = new EnumMap<>(PlayerLogAction.class);
+    }
+
+    // replaced whole so a submit sees either the old or the new policies, never a mix
+    private volatile Policy[] policies;
+    private final Consumer<PlayerLogEntry> output;
+    private final Map<UUID, PlayerState> players = new ConcurrentHashMap<>();
+    private final LongAdder limited = new LongAdder();
+
+    public PlayerLogLimiter(Map<PlayerLogAction, Policy> policies, Consumer<PlayerLogEntry> output) {
+        this.policies = toArray(policies);
+        this.output = output;
+    }
+
+    /**
+     * Replace the policies, writing the windows opened under the old ones. Entries submitted
+     * while this runs still end up in a window of this limiter, so none are lost.
+     */
+    public void setPolicies(Map<PlayerLogAction, Policy> policies) {
+        this.policies = toArray(policies);
+        flushAll();
+    }
+
+    private static Policy[] toArray(Map<PlayerLogAction, Policy> policies) {
+        Policy[] array = new Policy[ACTIONS.length];
+        policies.forEach((action, policy) -> array[action.ordinal()] = policy);
+        return array;
+    }
+
+    /**
+     * Entries sampled out, dropped by a rate cap or merged into another entry.
+     */
+    public long getLimited() {
+        return limited.sum();
+    }
+
+    public void submit(PlayerLogEntry entry) {
+        Policy policy = policies[entry.action.ordinal()];
+        if (policy == null || entry.raw) {
+            output.accept(entry);
+            return;
+        }
+
+        if (policy.sampleRate() < 1 && ThreadLocalRandom.current().nextDouble() >= policy.sampleRate()) {
+            limited.increment();
+            return;
+        }
+
+        PlayerState state = players.computeIfAbsent(entry.playerId, id -> new PlayerState());
+        synchronized (state) {
+            if (policy.coalesceMillis() > 0) {
+                WindowKey key = new WindowKey(entry.action, entry.subject, entry.world, entry.detail);
+                Window window = state.windows.get(key);
+                if (window != null) {
+                    window.add(entry);
+                    limited.increment();
+                } else {
+                    state.windows.put(key, new Window(entry, entry.time + policy.coalesceMillis()));
+                }
+                return;
+            }
+
+            if (!tryAcquire(state, entry.action, policy, entry.time)) {
+                limited.increment();
+                return;
+            }
+        }
+
+        output.accept(entry);
+    }
+
+    /**
+     * Write every window that has closed by {@code now}.
+     */
+    public void flush(long now) {
+        for (PlayerState state : players.values()) {
+            flush(state, now);
+        }
+    }
+
+    /**
+     * Write the players open windows and forget their rate limits, for when they leave.
+     */
+    public void flush(UUID playerId) {
+        PlayerState state = players.remove(playerId);
+        if (state != null) {
+            flush(state, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Write every open window.
+     */
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(PlayerState state, long now) {
+        Policy[] policies = this.policies;
+        List<PlayerLogEntry> entries = null;
+
+        synchronized (state) {
+            Iterator<Window> it = state.windows.values().iterator();
+            while (it.hasNext()) {
+                Window window = it.next();
+                if (window.closes > now) continue;
+                it.remove();
+
+                PlayerLogEntry entry = window.first;
+                Policy policy = policies[entry.action.ordinal()];
+                if (!tryAcquire(state, entry.action, policy, Math.min(now, window.closes))) {
+                    limited.increment();
+                    continue;
+                }
+
+                if (entries == null) entries = new ArrayList<>();
+                entries.add(window.toEntry());
+            }
+        }
+
+        if (entries != null) {
+            entries.forEach(output);
+        }
+    }
+
+    private static boolean tryAcquire(PlayerState state, PlayerLogAction action, Policy policy, long now) {
+        if (policy == null || policy.rate() <= 0) return true;
+
+        return state.buckets.computeIfAbsent(action, a -> new Bucket(policy.burst(), now)).tryAcquire(policy, now);
+    }
+}
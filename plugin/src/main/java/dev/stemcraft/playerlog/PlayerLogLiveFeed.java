@@ -0,0 +1,140 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+import dev.stemcraft.api.services.web.WebServiceEventStream;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans entries out to live viewers as they leave the pipeline.
+ * <p>
+ * Each entry is formatted once, however many viewers receive it, and handed to each viewer's
+ * stream without blocking. A stream that cannot keep up closes itself and is dropped here.
+ */
+public class PlayerLogLiveFeed {
+    private record Subscriber(WebServiceEventStream stream, Set<String> players, long actionMask) {
+        boolean matches(PlayerLogEntry entry) {
+            if (actionMask != 0 && (actionMask & (1L << entry.action.ordinal())) == 0) return false;
+            return players.isEmpty() || players.contains(entry.playerName.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start sending entries to a stream.
+     *
+     * @param players Player names to include, or empty for every player
+     * @param actions Actions to include, or empty for every action
+     */
+    public void subscribe(WebServiceEventStream stream, Collection<String> players, Collection<PlayerLogAction> actions) {
+        Set<String> names = new HashSet<>();
+        for (String player : players) {
+            names.add(player.toLowerCase(Locale.ROOT));
+        }
+
+        long mask = 0;
+        for (PlayerLogAction action : actions) {
+            mask |= 1L << action.ordinal();
+        }
+
+        subscribers.add(new Subscriber(stream, names, mask));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Send a batch of entries to every matching subscriber.
+     */
+    public void publish(List<PlayerLogEntry> entries) {
+        if (subscribers.isEmpty()) return;
+        subscribers.removeIf(subscriber -> !subscriber.stream().isOpen());
+
+        for (PlayerLogEntry entry : entries) {
+            String json = null;
+
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.matches(entry)) continue;
+
+                if (json == null) json = toJson(entry);
+                if (!subscriber.stream().send("log", json)) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close every stream.
+     */
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.stream().close();
+        }
+        subscribers.clear();
+    }
+
+    private static String toJson(PlayerLogEntry entry) {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"time\":\"").append(Instant.ofEpochMilli(entry.time)).append('"');
+        json.append(",\"player\":");
+        appendString(json, entry.playerName);
+        json.append(",\"uuid\":\"").append(entry.playerId).append('"');
+        json.append(",\"action\":\"").append(entry.action.name()).append('"');
+        if (entry.hasLocation()) {
+            json.append(",\"world\":");
+            appendString(json, entry.world);
+            json.append(",\"x\":").append(entry.x())
+                    .append(",\"y\":").append(entry.y())
+                    .append(",\"z\":").append(entry.z());
+        }
+        json.append(",\"message\":");
+        appendString(json, entry.format());
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
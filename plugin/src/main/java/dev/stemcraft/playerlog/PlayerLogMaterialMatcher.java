@@ -0,0 +1,66 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import org.bukkit.Material;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Set of materials selected by a list of name patterns.
+ * <p>
+ * The patterns are run against every material once when the matcher is built, so checking a
+ * material is a single array lookup by ordinal instead of a regex evaluation per pattern.
+ */
+public final class PlayerLogMaterialMatcher {
+    private final boolean[] matched;
+    private final boolean all;
+
+    private PlayerLogMaterialMatcher(boolean[] matched, boolean all) {
+        this.matched = matched;
+        this.all = all;
+    }
+
+    /**
+     * Build a matcher from patterns matched against the whole material name. An empty list
+     * matches every material.
+     */
+    public static PlayerLogMaterialMatcher compile(List<Pattern> patterns) {
+        Material[] materials = Material.values();
+        boolean[] matched = new boolean[materials.length];
+
+        for (Material material : materials) {
+            String name = material.name();
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(name).matches()) {
+                    matched[material.ordinal()] = true;
+                    break;
+                }
+            }
+        }
+
+        return new PlayerLogMaterialMatcher(matched, patterns.isEmpty());
+    }
+
+    public boolean matches(Material material) {
+        return all || matched[material.ordinal()];
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Moves player log entries from the game threads to disk.
+ * <p>
+ * Producers push onto a lock-free ring buffer and never touch shared collections. A single
+ * writer thread drains the buffer in batches, groups the batch by player and appends it to the
+ * {@link PlayerLogStore}. When the buffer fills the configured {@link BackpressurePolicy} decides
+ * what the producer does.
+ * <p>
+ * A listener can be set to receive each drained batch on the writer thread, for example to
+ * stream entries to live viewers without reading them back from disk.
+ * <p>
+ * With a {@link PlayerLogJournal} set, each batch is journaled before it is written to the
+ * store, and the writer checkpoints the journal as it goes and on stop.
+ */
+public class PlayerLogPipeline {
+    public enum BackpressurePolicy {
+        /** Discard the new entry when the buffer is full. */
+        DROP,
+        /** Keep one in every sample-rate entries once the buffer is over the high-water mark. */
+        SAMPLE,
+        /** Wait for the writer to make room. */
+        BLOCK;
+
+        public static BackpressurePolicy fromString(String value, BackpressurePolicy def) {
+            if (value == null) return def;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return def;
+            }
+        }
+    }
+
+    private static final int BATCH_SIZE = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final PlayerLogStore store;
+    private final Logger logger;
+    private final MpscRingBuffer<PlayerLogEntry> buffer;
+    private final BackpressurePolicy policy;
+    private final int sampleRate;
+    private final int highWaterMark;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running = false;
+    private volatile Consumer<List<PlayerLogEntry>> listener;
+    private PlayerLogJournal journal;
+    private Thread writer;
+
+    public PlayerLogPipeline(PlayerLogStore store, Logger logger, int capacity, BackpressurePolicy policy, int sampleRate) {
+        this.store = store;
+        this.logger = logger;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.highWaterMark = buffer.capacity() - buffer.capacity() / 4;
+    }
+
+    public void start() {
+        if (running) return;
+
+        running = true;
+        writer = new Thread(this::run, "STEMCraft-PlayerLog-Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop the writer thread after everything already queued has been written.
+     */
+    public void stop() {
+        if (!running) return;
+
+        running = false;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // writer did not finish in time or was never started, write the rest here. If it is
+        // still running the journal is left as is and replayed on the next start.
+        if (writer.isAlive()) {
+            logger.warning("[PlayerLog] Writer thread did not stop in time");
+        } else {
+            while (writeBatch() > 0) { }
+
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.warning("[PlayerLog] Failed to checkpoint player log journal: " + e.getMessage());
+                }
+            }
+
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.warning("[PlayerLog] Failed to save player log indexes: " + e.getMessage());
+            }
+        }
+        writer = null;
+    }
+
+    /**
+     * Queue an entry to be written. Safe to call from any thread.
+     */
+    public void submit(PlayerLogEntry entry) {
+        if (policy == BackpressurePolicy.SAMPLE && buffer.size() >= highWaterMark
+                && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            dropped.increment();
+            return;
+        }
+
+        if (buffer.offer(entry)) {
+            enqueued.increment();
+            return;
+        }
+
+        if (policy == BackpressurePolicy.BLOCK) {
+            LockSupport.unpark(writer);
+            while (running) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(entry)) {
+                    enqueued.increment();
+                    return;
+                }
+            }
+        }
+
+        dropped.increment();
+    }
+
+    /**
+     * Ask the writer to write out what is queued now rather than waiting for the next batch.
+     */
+    public void wakeup() {
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Set the listener that receives every batch after it is written. It is called on the writer
+     * thread so must not block.
+     */
+    public void setListener(Consumer<List<PlayerLogEntry>> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Journal batches before writing them. Must be set before {@link #start()}; the pipeline
+     * closes the journal when it stops.
+     */
+    public void setJournal(PlayerLogJournal journal) {
+        this.journal = journal;
+    }
+
+    public long getEnqueued() { return enqueued.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public long getWritten() { return written.sum(); }
+    public int getQueued() { return buffer.size(); }
+    public int getCapacity() { return buffer.capacity(); }
+    public BackpressurePolicy getPolicy() { return policy; }
+
+    private void run() {
+        while (running) {
+            // only loop straight away while the buffer is saturated, otherwise let a batch build up
+            int count = writeBatch();
+
+            if (journal != null) {
+                try {
+                    journal.tick();
+                } catch (IOException e) {
+                    logger.warning("[PlayerLog] Failed to sync player log journal: " + e.getMessage());
+                }
+            }
+
+            if (count < BATCH_SIZE) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        while (writeBatch() > 0) { }
+    }
+
+    private int writeBatch() {
+        Consumer<List<PlayerLogEntry>> listener = this.listener;
+        List<PlayerLogEntry> batch = listener != null ? new ArrayList<>() : null;
+        Map<String, List<PlayerLogEntry>> byPlayer = new LinkedHashMap<>();
+        int count = buffer.drain(entry -> {
+            byPlayer.computeIfAbsent(entry.playerName(), x -> new ArrayList<>()).add(entry);
+            if (batch != null) batch.add(entry);
+        }, BATCH_SIZE);
+
+        if (count == 0) return 0;
+
+        if (journal != null) {
+            try {
+                journal.append(byPlayer);
+            } catch (IOException e) {
+                logger.warning("[PlayerLog] Failed to journal player log batch: " + e.getMessage());
+            }
+        }
+
+        for (Map.Entry<String, List<PlayerLogEntry>> e : byPlayer.entrySet()) {
+            try {
+                store.append(e.getKey(), e.getValue());
+                written.add(e.getValue().size());
+            } catch (IOException ex) {
+                dropped.add(e.getValue().size());
+                logger.warning("[PlayerLog] Failed to write player log for " + e.getKey() + ": " + ex.getMessage());
+            } catch (RuntimeException ex) {
+                dropped.add(e.getValue().size());
+                logger.warning("[PlayerLog] Unexpected error writing player log for " + e.getKey() + ": " + ex);
+            }
+        }
+
+        if (listener != null) {
+            try {
+                listener.accept(batch);
+            } catch (RuntimeException ex) {
+                logger.warning("[PlayerLog] Player log listener failed: " + ex);
+            }
+        }
+
+        return count;
+    }
+}
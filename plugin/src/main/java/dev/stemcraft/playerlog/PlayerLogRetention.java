@@ -0,0 +1,78 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How many days entries of each action are kept. Actions without their own setting use the
+ * default.
+ */
+public class PlayerLogRetention {
+    private static final PlayerLogAction[] ACTIONS = PlayerLogAction.values();
+
+    private final int[] days = new int[ACTIONS.length];
+    private final int maxDays;
+
+    public PlayerLogRetention(int defaultDays, Map<PlayerLogAction, Integer> overrides) {
+        Map<PlayerLogAction, Integer> map = new EnumMap<>(PlayerLogAction.class);
+        map.putAll(overrides);
+
+        int max = 0;
+        for (PlayerLogAction action : ACTIONS) {
+            days[action.ordinal()] = Math.max(0, map.getOrDefault(action, defaultDays));
+            max = Math.max(max, days[action.ordinal()]);
+        }
+        maxDays = max;
+    }
+
+    public int getDays(PlayerLogAction action) {
+        return days[action.ordinal()];
+    }
+
+    /**
+     * The longest retention of any action. Segments older than this are deleted outright.
+     */
+    public int getMaxDays() {
+        return maxDays;
+    }
+
+    /**
+     * Returns true if entries of the action from the given day are past their retention.
+     */
+    public boolean isExpired(PlayerLogAction action, LocalDate day, LocalDate today) {
+        return day.isBefore(today.minusDays(days[action.ordinal()]));
+    }
+
+    /**
+     * Bitmap (by action ordinal) of the actions whose entries from the given day have expired.
+     */
+    public long expiredMask(LocalDate day, LocalDate today) {
+        long mask = 0;
+        for (PlayerLogAction action : ACTIONS) {
+            if (isExpired(action, day, today)) mask |= 1L << action.ordinal();
+        }
+        return mask;
+    }
+}
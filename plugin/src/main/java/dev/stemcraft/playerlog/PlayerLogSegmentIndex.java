@@ -0,0 +1,202 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogQuery;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Summary of a single log segment used to skip segments that cannot match a query.
+ * <p>
+ * Holds the time range, an action type bitmap, an hour-of-day bitmap and the set of chunks
+ * touched in each world. Stored next to the segment as {@code yyyy-MM-dd.idx}.
+ */
+public class PlayerLogSegmentIndex {
+    private static final int MAGIC = 0x53434C49; // SCLI
+    private static final byte VERSION = 1;
+
+    long segmentLength = 0;
+    int count = 0;
+    long minTime = Long.MAX_VALUE;
+    long maxTime = Long.MIN_VALUE;
+    long actionMask = 0;
+    int hourMask = 0;
+    private final Map<String, Set<Long>> chunks = new HashMap<>();
+
+    public void add(PlayerLogEntry entry) {
+        long time = entry.time();
+
+        count++;
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        actionMask |= 1L << entry.action().ordinal();
+        hourMask |= 1 << Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).getHour();
+
+        if (entry.hasLocation()) {
+            chunks.computeIfAbsent(entry.world, x -> new HashSet<>())
+                    .add(chunkKey(entry.x() >> 4, entry.z() >> 4));
+        }
+    }
+
+    /**
+     * Returns false if no entry in the segment can match the query.
+     */
+    public boolean mayMatch(PlayerLogQuery query) {
+        if (count == 0) return false;
+
+        if (!query.getActions().isEmpty()) {
+            long mask = 0;
+            for (var action : query.getActions()) {
+                mask |= 1L << action.ordinal();
+            }
+            if ((actionMask & mask) == 0) return false;
+        }
+
+        if (query.getFrom() != null && maxTime < query.getFrom().toEpochMilli()) return false;
+        if (query.getTo() != null && minTime > query.getTo().toEpochMilli()) return false;
+
+        if (query.getFrom() != null && query.getTo() != null
+                && query.getTo().toEpochMilli() - query.getFrom().toEpochMilli() < 86_400_000L) {
+            int fromHour = query.getFrom().atZone(ZoneId.systemDefault()).getHour();
+            int toHour = query.getTo().atZone(ZoneId.systemDefault()).getHour();
+            int mask = 0;
+            for (int h = fromHour; ; h = (h + 1) % 24) {
+                mask |= 1 << h;
+                if (h == toHour) break;
+            }
+            if ((hourMask & mask) == 0) return false;
+        }
+
+        if (query.hasLocationFilter()) {
+            if (query.getWorld() != null) {
+                Set<Long> worldChunks = null;
+                for (Map.Entry<String, Set<Long>> e : chunks.entrySet()) {
+                    if (e.getKey().equalsIgnoreCase(query.getWorld())) {
+                        worldChunks = e.getValue();
+                        break;
+                    }
+                }
+
+                return worldChunks != null && (!query.isBoxed() || overlaps(worldChunks, query));
+            }
+
+            for (Set<Long> worldChunks : chunks.values()) {
+                if (!query.isBoxed() || overlaps(worldChunks, query)) return true;
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean overlaps(Set<Long> worldChunks, PlayerLogQuery query) {
+        int minCx = query.getMinX() >> 4, maxCx = query.getMaxX() >> 4;
+        int minCz = query.getMinZ() >> 4, maxCz = query.getMaxZ() >> 4;
+        long area = (long) (maxCx - minCx + 1) * (maxCz - minCz + 1);
+
+        // probe whichever side is smaller
+        if (area <= worldChunks.size()) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    if (worldChunks.contains(chunkKey(cx, cz))) return true;
+                }
+            }
+            return false;
+        }
+
+        for (long key : worldChunks) {
+            int cx = (int) (key >> 32);
+            int cz = (int) key;
+            if (cx >= minCx && cx <= maxCx && cz >= minCz && cz <= maxCz) return true;
+        }
+        return false;
+    }
+
+    static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(segmentLength);
+            out.writeInt(count);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            out.writeLong(actionMask);
+            out.writeInt(hourMask);
+            out.writeInt(chunks.size());
+
+            for (Map.Entry<String, Set<Long>> e : chunks.entrySet()) {
+                long[] keys = e.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                out.writeUTF(e.getKey());
+                out.writeInt(keys.length);
+                for (long key : keys) {
+                    out.writeLong(key);
+                }
+            }
+        }
+
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load an index from disk. Returns null if the file is missing or unreadable.
+     */
+    public static PlayerLogSegmentIndex load(File file) {
+        if (!file.isFile()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) return null;
+
+            PlayerLogSegmentIndex index = new PlayerLogSegmentIndex();
+            index.segmentLength = in.readLong();
+            index.count = in.readInt();
+            index.minTime = in.readLong();
+            index.maxTime = in.readLong();
+            index.actionMask = in.readLong();
+            index.hourMask = in.readInt();
+
+            int worlds = in.readInt();
+            for (int w = 0; w < worlds; w++) {
+                String world = in.readUTF();
+                int size = in.readInt();
+                Set<Long> keys = new HashSet<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    keys.add(in.readLong());
+                }
+                index.chunks.put(world, keys);
+            }
+
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
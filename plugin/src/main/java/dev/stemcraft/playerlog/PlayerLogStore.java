@@ -0,0 +1,720 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import dev.stemcraft.api.services.playerlog.PlayerLogAction;
+import dev.stemcraft.api.services.playerlog.PlayerLogQuery;
+import dev.stemcraft.api.services.playerlog.PlayerLogRecord;
+import dev.stemcraft.api.utils.SCPosition;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, day segmented storage for player logs.
+ * <p>
+ * Each player has a directory under the log root containing one segment per day
+ * ({@code player_logs/<name>/yyyy-MM-dd.bin}) encoded with {@link PlayerLogCodec}. Writes only
+ * ever append to the segment for the day of the entry.
+ * <p>
+ * Past days are cold. {@link #maintain} compresses their segments into
+ * {@code yyyy-MM-dd.cold} files ({@link PlayerLogColdSegment}), which stay queryable, drops
+ * entries whose action has passed its retention and deletes days older than the longest
+ * retention. Cold files are only ever replaced whole, by writing a temporary file and moving it
+ * over the old one.
+ * <p>
+ * Every segment has a {@link PlayerLogSegmentIndex} beside it so queries only read the
+ * segments that can contain a match. Appends only update the index in memory; it is written
+ * out on {@link #sync}, {@link #maintain} and {@link #close}. An index left behind by a crash
+ * no longer matches its segment's length and is rebuilt when next loaded.
+ */
+public class PlayerLogStore {
+    private static final DateTimeFormatter TEXT_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SEGMENT_EXTENSION = ".bin";
+    private static final String COLD_EXTENSION = ".cold";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String TEXT_EXTENSION = ".log";
+    private static final String INDEX_EXTENSION = ".idx";
+
+    private final File root;
+    private final Map<File, PlayerLogSegmentIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<File, PlayerLogCodec.State> writeStates = new HashMap<>();
+    private final Set<File> unsynced = new HashSet<>();
+    // segments whose index in memory is ahead of the one on disk
+    private final Set<File> unsavedIndexes = new HashSet<>();
+    // queries hold the read lock while scanning a player, replacing segments takes the write lock
+    private final ReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+
+    /**
+     * Outcome of a {@link #maintain} pass.
+     */
+    public record Maintenance(int removed, int compressed, int rewritten, List<IOException> errors) { }
+
+    /**
+     * A past day segment is left hot until it has not been written to for this long, in case
+     * entries from just before midnight are still being written.
+     */
+    private static final long COMPRESS_DELAY_MILLIS = 5 * 60 * 1000L;
+
+    public PlayerLogStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Get the directory holding the segments for the player.
+     */
+    public File getPlayerDirectory(String playerName) {
+        return new File(root, playerName);
+    }
+
+    /**
+     * Returns true if any segments have been written for the player.
+     */
+    public boolean hasPlayer(String playerName) {
+        return getPlayerDirectory(playerName).isDirectory();
+    }
+
+    /**
+     * Append entries to the players segments. Entries must be in chronological order.
+     */
+    public synchronized void append(String playerName, List<PlayerLogEntry> entries) throws IOException {
+        if (entries.isEmpty()) return;
+
+        File dir = getPlayerDirectory(playerName);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create log directory " + dir);
+        }
+
+        LocalDate currentDay = null;
+        File segment = null;
+        PlayerLogSegmentIndex index = null;
+        PlayerLogCodec.State state = null;
+        OutputStream out = null;
+
+        try {
+            for (PlayerLogEntry entry : entries) {
+                LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(entry.time()), ZoneId.systemDefault());
+
+                if (!day.equals(currentDay)) {
+                    if (out != null) {
+                        out.close();
+                        finishSegment(segment, state);
+                    }
+
+                    currentDay = day;
+                    segment = segmentFile(dir, day);
+                    index = index(segment);
+                    state = openForAppend(segment);
+                    out = new BufferedOutputStream(new FileOutputStream(segment, true));
+
+                    if (state.length == 0) {
+                        PlayerLogCodec.writeHeader(out);
+                    }
+                }
+
+                PlayerLogCodec.encode(entry, state, out);
+                index.add(entry);
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+                finishSegment(segment, state);
+            }
+        }
+    }
+
+    /**
+     * Find records matching the query across all players, newest first.
+     */
+    public List<PlayerLogRecord> query(PlayerLogQuery query) throws IOException {
+        LocalDate fromDay = query.getFrom() != null ? LocalDate.ofInstant(query.getFrom(), ZoneId.systemDefault()) : null;
+        LocalDate toDay = query.getTo() != null ? LocalDate.ofInstant(query.getTo(), ZoneId.systemDefault()) : null;
+        long fromTime = query.getFrom() != null ? query.getFrom().toEpochMilli() : Long.MIN_VALUE;
+        long toTime = query.getTo() != null ? query.getTo().toEpochMilli() : Long.MAX_VALUE;
+
+        // keep only the newest limit results while scanning, and only format those
+        PriorityQueue<PlayerLogEntry> results = new PriorityQueue<>(Comparator.comparingLong(PlayerLogEntry::time));
+
+        File[] players = root.listFiles(File::isDirectory);
+        if (players == null) return List.of();
+
+        for (File dir : players) {
+            if (!query.getPlayers().isEmpty() && !query.getPlayers().contains(dir.getName().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+
+            segmentsLock.readLock().lock();
+            try {
+                File[] segments = dir.listFiles((d, name) -> isSegment(name));
+                if (segments == null) continue;
+
+                for (File segment : segments) {
+                    LocalDate day = segmentDay(segment);
+                    if (day == null) continue;
+                    if (fromDay != null && day.isBefore(fromDay)) continue;
+                    if (toDay != null && day.isAfter(toDay)) continue;
+
+                    synchronized (this) {
+                        if (!index(segment).mayMatch(query)) continue;
+                    }
+
+                    read(segment, dir.getName(), fromTime, toTime, entry -> {
+                        if (!entry.matches(query)) return;
+
+                        results.add(entry);
+                        if (results.size() > query.getLimit()) {
+                            results.poll();
+                        }
+                    });
+                }
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+
+        List<PlayerLogRecord> list = new ArrayList<>(results.size());
+        for (PlayerLogEntry entry : results) {
+            list.add(entry.toRecord());
+        }
+        list.sort(Comparator.comparing(PlayerLogRecord::timestamp).reversed());
+        return list;
+    }
+
+    /**
+     * Every day that has a segment for any player, oldest first.
+     */
+    public SortedSet<LocalDate> getDays() {
+        SortedSet<LocalDate> days = new TreeSet<>();
+
+        File[] players = root.listFiles(File::isDirectory);
+        if (players == null) return days;
+
+        for (File dir : players) {
+            String[] names = dir.list((d, name) -> isSegment(name));
+            if (names == null) continue;
+
+            for (String name : names) {
+                LocalDate day = segmentDay(new File(dir, name));
+                if (day != null) days.add(day);
+            }
+        }
+
+        return days;
+    }
+
+    /**
+     * Read every entry for a day, one player at a time. Only one segment is read at a time, so
+     * memory use does not grow with the size of the day.
+     */
+    public void readDay(LocalDate day, Consumer<PlayerLogEntry> consumer) throws IOException {
+        File[] players = root.listFiles(File::isDirectory);
+        if (players == null) return;
+
+        Arrays.sort(players);
+        for (File dir : players) {
+            segmentsLock.readLock().lock();
+            try {
+                for (File segment : new File[] { coldFile(dir, day), segmentFile(dir, day) }) {
+                    if (segment.exists()) {
+                        read(segment, dir.getName(), consumer);
+                    }
+                }
+            } finally {
+                segmentsLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Read every entry in a segment in the order they were written.
+     */
+    public void read(File segment, String playerName, Consumer<PlayerLogEntry> consumer) throws IOException {
+        read(segment, playerName, Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Read the entries in a segment, skipping compressed blocks entirely outside the time range.
+     */
+    private void read(File segment, String playerName, long fromTime, long toTime,
+                      Consumer<PlayerLogEntry> consumer) throws IOException {
+        if (segment.getName().endsWith(COLD_EXTENSION)) {
+            PlayerLogColdSegment.read(segment, playerName, fromTime, toTime, consumer);
+        } else {
+            PlayerLogCodec.decode(segment, playerName, consumer);
+        }
+    }
+
+    /**
+     * Apply retention and compress past days. Days older than the longest retention are deleted,
+     * hot segments from before today are compressed into cold segments without their expired
+     * entries, and cold segments holding expired actions are rewritten without them.
+     * <p>
+     * This is slow and should be run off the main thread. Appends are only blocked while a
+     * finished file is swapped in.
+     */
+    public Maintenance maintain(PlayerLogRetention retention) {
+        LocalDate today = LocalDate.now();
+        LocalDate cutoff = today.minusDays(retention.getMaxDays());
+        int removed = 0, compressed = 0, rewritten = 0;
+        List<IOException> errors = new ArrayList<>();
+
+        File[] players = root.listFiles(File::isDirectory);
+        if (players == null) return new Maintenance(0, 0, 0, errors);
+
+        for (File dir : players) {
+            String[] names = dir.list((d, name) -> isSegment(name));
+            if (names == null) continue;
+
+            SortedSet<LocalDate> days = new TreeSet<>();
+            for (String name : names) {
+                LocalDate day = segmentDay(new File(dir, name));
+                if (day != null && day.isBefore(today)) days.add(day);
+            }
+
+            for (LocalDate day : days) {
+                File hot = segmentFile(dir, day);
+                File cold = coldFile(dir, day);
+
+                try {
+                    if (day.isBefore(cutoff)) {
+                        removed += replaceSegments(() -> {
+                            int count = 0;
+                            if (deleteSegment(hot)) count++;
+                            if (deleteSegment(cold)) count++;
+                            return count;
+                        });
+                    } else if (hot.exists()) {
+                        if (System.currentTimeMillis() - hot.lastModified() >= COMPRESS_DELAY_MILLIS
+                                && compact(dir.getName(), day, today, retention, true)) {
+                            compressed++;
+                        }
+                    } else if (cold.exists() && hasExpired(cold, retention.expiredMask(day, today))) {
+                        if (compact(dir.getName(), day, today, retention, false)) {
+                            rewritten++;
+                        }
+                    }
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            }
+
+            String[] remaining = dir.list();
+            if (remaining != null && remaining.length == 0) {
+                dir.delete();
+            }
+        }
+
+        // only the current day is appended to, forget the rest
+        synchronized (this) {
+            writeStates.keySet().removeIf(segment -> !today.equals(segmentDay(segment)));
+        }
+
+        try {
+            saveIndexes();
+        } catch (IOException e) {
+            errors.add(e);
+        }
+
+        return new Maintenance(removed, compressed, rewritten, errors);
+    }
+
+    /**
+     * Write a new cold segment for the day from the existing cold segment and, if
+     * {@code includeHot}, the hot segment, leaving out expired entries. Returns false if a
+     * segment was appended to while compressing, in which case nothing is replaced.
+     */
+    private boolean compact(String playerName, LocalDate day, LocalDate today, PlayerLogRetention retention,
+                            boolean includeHot) throws IOException {
+        File dir = getPlayerDirectory(playerName);
+        File hot = segmentFile(dir, day);
+        File cold = coldFile(dir, day);
+        File temp = new File(dir, cold.getName() + TEMP_EXTENSION);
+
+        long hotLength = includeHot ? hot.length() : -1;
+        long coldLength = cold.exists() ? cold.length() : -1;
+        long expired = retention.expiredMask(day, today);
+
+        // a crash after the cold file was replaced but before the hot one was deleted
+        boolean merged = includeHot && coldLength >= 0 && PlayerLogColdSegment.getSourceLength(cold) == hotLength;
+
+        PlayerLogSegmentIndex index = new PlayerLogSegmentIndex();
+        try (PlayerLogColdSegment.Writer writer = new PlayerLogColdSegment.Writer(temp)) {
+            Consumer<PlayerLogEntry> keep = entry -> {
+                if ((expired & (1L << entry.action().ordinal())) != 0) return;
+
+                try {
+                    writer.add(entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                index.add(entry);
+            };
+
+            if (coldLength >= 0) {
+                PlayerLogColdSegment.read(cold, playerName, keep);
+            }
+            if (includeHot && !merged) {
+                PlayerLogCodec.decode(hot, playerName, keep);
+                writer.setSourceLength(hotLength);
+            }
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e.getCause();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        return replaceSegments(() -> {
+            if ((includeHot && hot.length() != hotLength) || (cold.exists() ? cold.length() : -1) != coldLength) {
+                Files.deleteIfExists(temp.toPath());
+                return false;
+            }
+
+            if (index.count == 0) {
+                Files.deleteIfExists(temp.toPath());
+                deleteSegment(cold);
+            } else {
+                Files.move(temp.toPath(), cold.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                indexes.put(cold, index);
+                saveIndex(cold, index);
+            }
+
+            if (includeHot) {
+                deleteSegment(hot);
+            }
+            return true;
+        });
+    }
+
+    private synchronized boolean hasExpired(File segment, long expiredMask) throws IOException {
+        return (index(segment).actionMask & expiredMask) != 0;
+    }
+
+    private interface SegmentChange<T> {
+        T apply() throws IOException;
+    }
+
+    /**
+     * Run a change to the set of segment files while no query is scanning and nothing is
+     * being appended.
+     */
+    private <T> T replaceSegments(SegmentChange<T> change) throws IOException {
+        segmentsLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                return change.apply();
+            }
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+    }
+
+    private boolean deleteSegment(File segment) throws IOException {
+        indexes.remove(segment);
+        unsavedIndexes.remove(segment);
+        writeStates.remove(segment);
+        Files.deleteIfExists(indexFile(segment).toPath());
+        return Files.deleteIfExists(segment.toPath());
+    }
+
+    /**
+     * Convert text logs into binary segments. This covers both the single file per player logs
+     * ({@code player_logs/<name>.log}, newest first) and text day segments
+     * ({@code player_logs/<name>/yyyy-MM-dd.log}). Returns the number of files migrated.
+     */
+    public synchronized int migrateLegacy() throws IOException {
+        int migrated = 0;
+
+        File[] legacy = root.listFiles((d, name) -> name.endsWith(TEXT_EXTENSION));
+        if (legacy != null) {
+            for (File file : legacy) {
+                if (!file.isFile()) continue;
+
+                String playerName = file.getName().substring(0, file.getName().length() - TEXT_EXTENSION.length());
+                List<PlayerLogEntry> entries = readText(file, playerName);
+                Collections.reverse(entries); // legacy files were written newest first
+
+                append(playerName, entries);
+                Files.delete(file.toPath());
+                migrated++;
+            }
+        }
+
+        File[] players = root.listFiles(File::isDirectory);
+        if (players != null) {
+            for (File dir : players) {
+                File[] texts = dir.listFiles((d, name) -> name.endsWith(TEXT_EXTENSION));
+                if (texts == null) continue;
+
+                Arrays.sort(texts);
+                for (File file : texts) {
+                    append(dir.getName(), readText(file, dir.getName()));
+                    Files.delete(file.toPath());
+                    migrated++;
+                }
+            }
+        }
+
+        return migrated;
+    }
+
+    private PlayerLogCodec.State openForAppend(File segment) throws IOException {
+        PlayerLogCodec.State state = writeStates.get(segment);
+
+        if (state == null || state.length != segment.length()) {
+            state = segment.exists() ? PlayerLogCodec.decode(segment, segment.getParentFile().getName(), entry -> { })
+                    : new PlayerLogCodec.State();
+
+            // drop a torn tail so new frames follow the last complete one
+            if (segment.exists() && segment.length() != state.length) {
+                try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(state.length);
+                }
+            }
+
+            writeStates.put(segment, state);
+        }
+
+        return state;
+    }
+
+    /**
+     * The current length of each segment the entries would be appended to, 0 for segments that
+     * do not exist yet.
+     */
+    public synchronized Map<File, Long> getSegmentLengths(String playerName, List<PlayerLogEntry> entries) {
+        Map<File, Long> lengths = new LinkedHashMap<>();
+        File dir = getPlayerDirectory(playerName);
+
+        LocalDate currentDay = null;
+        for (PlayerLogEntry entry : entries) {
+            LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(entry.time()), ZoneId.systemDefault());
+            if (day.equals(currentDay)) continue;
+
+            currentDay = day;
+            File segment = segmentFile(dir, day);
+            lengths.putIfAbsent(segment, segment.length());
+        }
+
+        return lengths;
+    }
+
+    /**
+     * Path of a segment relative to the log root, with forward slashes.
+     */
+    public String getRelativePath(File segment) {
+        return root.toPath().relativize(segment.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Cut a segment back to a previous length, dropping anything appended since.
+     */
+    public synchronized void truncate(String relativePath, long length) throws IOException {
+        File segment = new File(root, relativePath);
+        if (!segment.toPath().normalize().startsWith(root.toPath().normalize())) {
+            throw new IOException("Segment outside of log directory: " + relativePath);
+        }
+        if (!segment.exists() || segment.length() <= length) return;
+
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+        writeStates.remove(segment);
+        indexes.remove(segment);
+        unsavedIndexes.remove(segment);
+    }
+
+    /**
+     * Flush the segments appended to since the last sync to disk and save their indexes.
+     */
+    public synchronized void sync() throws IOException {
+        for (File segment : unsynced) {
+            if (!segment.exists()) continue;
+
+            try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        unsynced.clear();
+        saveIndexes();
+    }
+
+    /**
+     * Save the indexes of the segments appended to, before the store is discarded.
+     */
+    public synchronized void close() throws IOException {
+        saveIndexes();
+    }
+
+    private synchronized void saveIndexes() throws IOException {
+        Iterator<File> it = unsavedIndexes.iterator();
+        while (it.hasNext()) {
+            File segment = it.next();
+            PlayerLogSegmentIndex index = indexes.get(segment);
+            if (index != null && segment.exists()) {
+                saveIndex(segment, index);
+            }
+            it.remove();
+        }
+    }
+
+    private void finishSegment(File segment, PlayerLogCodec.State state) {
+        unsynced.add(segment);
+        unsavedIndexes.add(segment);
+        state.length = segment.length();
+    }
+
+    private PlayerLogSegmentIndex index(File segment) throws IOException {
+        PlayerLogSegmentIndex index = indexes.get(segment);
+        if (index == null) {
+            index = PlayerLogSegmentIndex.load(indexFile(segment));
+
+            // missing, or the segment was written without updating the index
+            if (index == null || index.segmentLength != segment.length()) {
+                index = rebuildIndex(segment);
+            }
+
+            indexes.put(segment, index);
+        }
+
+        return index;
+    }
+
+    private PlayerLogSegmentIndex rebuildIndex(File segment) throws IOException {
+        PlayerLogSegmentIndex index = new PlayerLogSegmentIndex();
+        if (segment.exists()) {
+            read(segment, segment.getParentFile().getName(), index::add);
+            saveIndex(segment, index);
+        }
+
+        return index;
+    }
+
+    private void saveIndex(File segment, PlayerLogSegmentIndex index) throws IOException {
+        index.segmentLength = segment.length();
+        index.save(indexFile(segment));
+    }
+
+    /**
+     * Read a text log. Lines are either {@code <timestamp> <message>} or
+     * {@code <timestamp>\t<ACTION>\t<world,x,y,z or ->\t<message>}.
+     */
+    private static List<PlayerLogEntry> readText(File file, String playerName) throws IOException {
+        List<PlayerLogEntry> entries = new ArrayList<>();
+
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.length() < 20) continue;
+
+            long time;
+            try {
+                time = LocalDateTime.parse(line.substring(0, 19), TEXT_TIMESTAMP_FORMAT)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                continue; // bad line, skip
+            }
+
+            PlayerLogAction action;
+            String world = null;
+            long position = 0;
+            String message;
+
+            String[] parts = line.charAt(19) == '\t' ? line.substring(20).split("\t", 3) : null;
+            if (parts != null && parts.length == 3) {
+                action = PlayerLogAction.fromString(parts[0]);
+                if (action == null) action = PlayerLogAction.CUSTOM;
+                message = parts[2];
+
+                String location = parts[1];
+                int zSep = location.lastIndexOf(',');
+                int ySep = zSep > 0 ? location.lastIndexOf(',', zSep - 1) : -1;
+                int xSep = ySep > 0 ? location.lastIndexOf(',', ySep - 1) : -1;
+                if (xSep > 0) {
+                    try {
+                        position = SCPosition.pack(
+                                Integer.parseInt(location.substring(xSep + 1, ySep)),
+                                Integer.parseInt(location.substring(ySep + 1, zSep)),
+                                Integer.parseInt(location.substring(zSep + 1)));
+                        world = location.substring(0, xSep);
+                    } catch (NumberFormatException ignored) {
+                        // keep the entry without a location
+                    }
+                }
+            } else {
+                message = line.substring(20);
+                action = PlayerLogAction.fromMessage(message);
+            }
+
+            entries.add(new PlayerLogEntry(time, PlayerLogEntry.SERVER_UUID, playerName, action, world, position,
+                    null, 0, message, null, true));
+        }
+
+        return entries;
+    }
+
+    private static File segmentFile(File dir, LocalDate day) {
+        return new File(dir, day + SEGMENT_EXTENSION);
+    }
+
+    private static File coldFile(File dir, LocalDate day) {
+        return new File(dir, day + COLD_EXTENSION);
+    }
+
+    private static boolean isSegment(String name) {
+        return name.endsWith(SEGMENT_EXTENSION) || name.endsWith(COLD_EXTENSION);
+    }
+
+    /**
+     * {@code yyyy-MM-dd.idx} for a hot segment and {@code yyyy-MM-dd.cold.idx} for a cold one.
+     */
+    private static File indexFile(File segment) {
+        String name = segment.getName();
+        if (name.endsWith(SEGMENT_EXTENSION)) {
+            name = name.substring(0, name.length() - SEGMENT_EXTENSION.length());
+        }
+        return new File(segment.getParentFile(), name + INDEX_EXTENSION);
+    }
+
+    private static LocalDate segmentDay(File segment) {
+        String name = segment.getName();
+        int dot = name.indexOf('.');
+        try {
+            return LocalDate.parse(dot < 0 ? name : name.substring(0, dot));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import dev.stemcraft.api.services.web.WebRequest;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link WebRequest} backed by an HttpServer exchange.
+ */
+public class HttpWebRequest implements WebRequest {
+    private final HttpExchange exchange;
+    private final Map<String, String> pathParameters;
+    private Map<String, String> queryParameters;
+
+    public HttpWebRequest(HttpExchange exchange, Map<String, String> pathParameters) {
+        this.exchange = exchange;
+        this.pathParameters = Collections.unmodifiableMap(pathParameters);
+    }
+
+    @Override
+    public String getMethod() {
+        return exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public String getPath() {
+        return exchange.getRequestURI().getPath();
+    }
+
+    @Override
+    public String getPathParameter(String name) {
+        return pathParameters.get(name);
+    }
+
+    @Override
+    public Map<String, String> getPathParameters() {
+        return pathParameters;
+    }
+
+    @Override
+    public Map<String, String> getQueryParameters() {
+        if (queryParameters == null) {
+            queryParameters = Collections.unmodifiableMap(parseQuery(exchange.getRequestURI().getRawQuery()));
+        }
+        return queryParameters;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return exchange.getRequestHeaders().getFirst(name);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(exchange.getRequestHeaders());
+    }
+
+    @Override
+    public InputStream getBody() {
+        return exchange.getRequestBody();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return exchange.getRemoteAddress();
+    }
+
+    /**
+     * Parse a raw query string. Repeated keys are joined with a comma.
+     */
+    public static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (query == null || query.isEmpty()) return parameters;
+
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+
+            int sep = pair.indexOf('=');
+            String key = URLDecoder.decode(sep < 0 ? pair : pair.substring(0, sep), StandardCharsets.UTF_8);
+            String value = sep < 0 ? "" : URLDecoder.decode(pair.substring(sep + 1), StandardCharsets.UTF_8);
+            parameters.merge(key, value, (a, b) -> a + "," + b);
+        }
+
+        return parameters;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Static files held in memory, least recently used first out once the cache is over its byte
+ * limit. A WatchService on the web root drops files as soon as they change on disk, and drops
+ * everything if it misses events.
+ * <p>
+ * Files over the per file limit are never held, their {@link Entry} carries only the
+ * validators so the caller can answer conditional requests and read the file itself.
+ * <p>
+ * A .br or .gz file beside an asset, at least as new as it, is offered as that encoding.
+ * Compressible assets that are cached without a .gz are gzipped once as they are loaded.
+ */
+public class StaticFileCache {
+    private final Path root;
+    private final long maxBytes;
+    private final long maxFileBytes;
+    private final long compressMin;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private WatchService watcher;
+    private Thread watchThread;
+
+    /**
+     * A static file and its validators.
+     *
+     * @param path         The file
+     * @param data         The file contents, or null if the file is too large to cache
+     * @param size         The file size in bytes
+     * @param lastModified The modified time in milliseconds
+     * @param etag         A strong ETag derived from the size and modified time
+     * @param contentType  The content type for the file name
+     * @param variants     Compressed versions by content encoding
+     */
+    public record Entry(Path path, byte[] data, long size, long lastModified, String etag, String contentType,
+                        Map<String, Variant> variants) {
+        long weight() {
+            long weight = data == null ? 0 : data.length;
+            for (Variant variant : variants.values()) {
+                if (variant.data() != null) weight += variant.data().length;
+            }
+            return weight;
+        }
+    }
+
+    /**
+     * A compressed version of a file.
+     *
+     * @param path The precompressed file, or null if it was compressed in memory
+     * @param data The compressed contents, or null if they are not cached
+     * @param size The compressed size in bytes
+     * @param etag The entry's ETag marked with the encoding, as the bytes differ
+     */
+    public record Variant(Path path, byte[] data, long size, String etag) { }
+
+    public StaticFileCache(Path root, long maxBytes, long maxFileBytes, long compressMin) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxFileBytes = Math.min(Math.max(0, maxFileBytes), this.maxBytes);
+        this.compressMin = Math.max(0, compressMin);
+    }
+
+    /**
+     * Start watching the web root for changes.
+     */
+    public void start() throws IOException {
+        watcher = root.getFileSystem().newWatchService();
+        registerTree(root);
+
+        watchThread = new Thread(this::watch, "STEMCraft-Web-Watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    public void stop() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        try {
+            if (watcher != null) watcher.close();
+        } catch (IOException ignored) {
+        }
+        clear();
+    }
+
+    /**
+     * Returns the file, from memory if it is cached. Returns null if it is not a regular file.
+     */
+    public Entry get(Path file) throws IOException {
+        file = file.toAbsolutePath().normalize();
+        synchronized (this) {
+            Entry entry = entries.get(file);
+            if (entry != null) return entry;
+        }
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (!attrs.isRegularFile()) return null;
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String tag = Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+        String contentType = WebContent.contentType(file.getFileName().toString());
+        boolean cached = size <= maxFileBytes;
+        byte[] data = cached ? Files.readAllBytes(file) : null;
+
+        Map<String, Variant> variants = new HashMap<>();
+        addSibling(variants, file, WebContent.BROTLI, ".br", "-br", tag, lastModified, cached);
+        addSibling(variants, file, WebContent.GZIP, ".gz", "-gz", tag, lastModified, cached);
+        if (cached && !variants.containsKey(WebContent.GZIP) && size >= compressMin && WebContent.isCompressible(contentType)) {
+            byte[] gzip = WebContent.gzip(data);
+            if (gzip.length < size) {
+                variants.put(WebContent.GZIP, new Variant(null, gzip, gzip.length, "\"" + tag + "-gz\""));
+            }
+        }
+
+        Entry entry = new Entry(file, data, size, lastModified, "\"" + tag + "\"", contentType, Map.copyOf(variants));
+        if (!cached) return entry;
+
+        // written while being read, serve what was read but leave it for the next request
+        BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+        if (after.size() != size || after.lastModifiedTime().toMillis() != lastModified) {
+            return entry;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(file, entry);
+            if (previous != null) bytes -= previous.weight();
+            bytes += entry.weight();
+            evict();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns true if the request's validators show the client already has this version. An
+     * If-None-Match header takes precedence over If-Modified-Since.
+     */
+    public static boolean isNotModified(String etag, long lastModified, String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals("*") || tag.equals(etag)) return true;
+            }
+            return false;
+        }
+
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return lastModified / 1000 <= since / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the ETag for a file of this size and modified time.
+     */
+    public static String etag(long size, long lastModified) {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Format a time for the Last-Modified header.
+     */
+    public static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().weight();
+            it.remove();
+        }
+    }
+
+    private void addSibling(Map<String, Variant> variants, Path file, String encoding, String suffix, String mark,
+                            String tag, long lastModified, boolean cached) throws IOException {
+        Path sibling = file.resolveSibling(file.getFileName() + suffix);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(sibling, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+
+        // an older sibling was left behind by an edit to the asset
+        if (!attrs.isRegularFile() || attrs.lastModifiedTime().toMillis() < lastModified) return;
+
+        byte[] data = cached && attrs.size() <= maxFileBytes ? Files.readAllBytes(sibling) : null;
+        variants.put(encoding, new Variant(sibling, data, attrs.size(), "\"" + tag + mark + "\""));
+    }
+
+    /**
+     * Drop the path, or everything under it if it was a folder.
+     */
+    private synchronized void invalidate(Path path) {
+        // a changed .br or .gz changes the asset it sits beside
+        String name = path.getFileName() == null ? "" : path.getFileName().toString();
+        if (name.endsWith(".br") || name.endsWith(".gz")) {
+            invalidate(path.resolveSibling(name.substring(0, name.length() - 3)));
+        }
+
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Entry> entry = it.next();
+            if (entry.getKey().startsWith(path)) {
+                bytes -= entry.getValue().weight();
+                it.remove();
+            }
+        }
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path folder, BasicFileAttributes attrs) throws IOException {
+                folder.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watcher.take();
+                Path dir = (Path) key.watchable();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        clear();
+                        continue;
+                    }
+
+                    Path path = dir.resolve((Path) event.context());
+                    invalidate(path);
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        try {
+                            registerTree(path);
+                        } catch (IOException e) {
+                            // folder went away again
+                        }
+                    }
+                }
+
+                if (!key.reset()) {
+                    invalidate(dir);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+}
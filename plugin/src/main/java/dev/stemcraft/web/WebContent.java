@@ -0,0 +1,150 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content types and Accept-Encoding negotiation for web responses.
+ * <p>
+ * Only gzip can be produced on the fly, the JDK has no Brotli encoder. Brotli is served when a
+ * precompressed .br file sits beside the asset.
+ */
+public final class WebContent {
+    public static final String GZIP = "gzip";
+    public static final String BROTLI = "br";
+
+    /**
+     * Encodings in order of preference when the client weighs them equally.
+     */
+    private static final String[] PREFERRED = {BROTLI, GZIP};
+
+    private static final Map<String, String> TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=utf-8"),
+            Map.entry("htm", "text/html; charset=utf-8"),
+            Map.entry("css", "text/css; charset=utf-8"),
+            Map.entry("js", "text/javascript; charset=utf-8"),
+            Map.entry("mjs", "text/javascript; charset=utf-8"),
+            Map.entry("json", "application/json"),
+            Map.entry("map", "application/json"),
+            Map.entry("webmanifest", "application/manifest+json"),
+            Map.entry("xml", "application/xml"),
+            Map.entry("txt", "text/plain; charset=utf-8"),
+            Map.entry("csv", "text/csv; charset=utf-8"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff", "font/woff"),
+            Map.entry("woff2", "font/woff2"),
+            Map.entry("wasm", "application/wasm"),
+            Map.entry("zip", "application/zip"),
+            Map.entry("gz", "application/gzip")
+    );
+
+    private WebContent() { }
+
+    /**
+     * Returns the content type for a file name, or application/octet-stream if it is unknown.
+     */
+    public static String contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    /**
+     * Returns true if compressing the content type is worth it. Images other than SVG, fonts and
+     * archives are already compressed.
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/")
+                || contentType.startsWith("application/json")
+                || contentType.startsWith("application/manifest+json")
+                || contentType.startsWith("application/xml")
+                || contentType.startsWith("application/wasm")
+                || contentType.startsWith("image/svg+xml");
+    }
+
+    /**
+     * Pick the encoding to send from those available, or null to send the content as is.
+     */
+    public static String negotiate(String acceptEncoding, Collection<String> available) {
+        if (acceptEncoding == null || available.isEmpty()) return null;
+
+        String best = null;
+        double bestQuality = 0;
+        for (String encoding : PREFERRED) {
+            if (!available.contains(encoding)) continue;
+
+            double quality = quality(acceptEncoding, encoding);
+            if (quality > bestQuality) {
+                best = encoding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The weight the header gives an encoding, falling back to the * entry, 0 if not accepted.
+     */
+    private static double quality(String acceptEncoding, String encoding) {
+        double wildcard = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equals(encoding)) return quality;
+            if (name.equals("*")) wildcard = quality;
+        }
+        return wildcard;
+    }
+
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in memory streams do not fail
+        }
+        return out.toByteArray();
+    }
+}
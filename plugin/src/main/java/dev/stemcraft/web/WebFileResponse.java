@@ -0,0 +1,152 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sends a file, or one byte range of it, as the response body.
+ * <p>
+ * Files not held in memory are streamed with {@link FileChannel#transferTo}, so heap use does
+ * not grow with the file. HttpServer only exposes the response as a stream, so the transfer
+ * goes through a fixed size buffer rather than straight to the socket.
+ * <p>
+ * A single {@code bytes=} range is answered with 206 Partial Content, one that lies outside
+ * the file with 416. Multiple ranges, or an If-Range that no longer matches, get the whole file.
+ */
+public final class WebFileResponse {
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private WebFileResponse() { }
+
+    /**
+     * Send the file. The caller sets any other headers first.
+     *
+     * @param data The file contents if they are in memory, otherwise the file is read from path
+     */
+    public static void send(HttpExchange exchange, Path path, byte[] data, long size, String etag, long lastModified) throws IOException {
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+
+        long start = 0;
+        long end = size - 1;
+        int status = 200;
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && size > 0 && ifRangeMatches(exchange.getRequestHeaders().getFirst("If-Range"), etag, lastModified)) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == UNSATISFIABLE) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + size);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        if (exchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(Math.max(0, length)));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, length <= 0 ? -1 : length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (length <= 0) return;
+
+            if (data != null) {
+                os.write(data, (int) start, (int) length);
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(os);
+                long position = start;
+                long remaining = length;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, out);
+                    if (sent <= 0) break; // file shrank since its size was read
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a Range header into inclusive bounds. Returns null to send the whole file and
+     * {@link #UNSATISFIABLE} if the range starts past the end.
+     */
+    static long[] parseRange(String header, long size) {
+        header = header.trim();
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return null;
+
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            if (first.isEmpty()) {
+                // suffix range, the final n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return UNSATISFIABLE;
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size) return UNSATISFIABLE;
+            if (end < start) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range holds an ETag or a date, and the range only applies if it still matches.
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) return true;
+
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        return ifRange.equals(StaticFileCache.httpDate(lastModified));
+    }
+}
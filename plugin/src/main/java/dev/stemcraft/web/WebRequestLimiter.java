@@ -0,0 +1,152 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits how many requests a handler runs at once and for how long.
+ * <p>
+ * A request over the concurrency limit waits for a slot, up to the timeout, and is answered
+ * with 503 if the wait queue is full or the slot does not free up in time. A handler that has
+ * not started its response by the timeout is answered with 503, interrupted and its connection
+ * closed, so a stuck handler cannot hold a client or a slot forever. Once the response has
+ * started the timeout no longer applies, so large downloads on slow links are not cut off.
+ */
+public class WebRequestLimiter implements HttpHandler {
+    private final HttpHandler handler;
+    private final Semaphore permits;
+    private final int queueLimit;
+    private final long timeoutMillis;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Whether a request is still running, guarded by its own lock so the watchdog can only
+     * interrupt the thread while it is still serving this request.
+     */
+    private static final class Request {
+        private boolean finished;
+        private boolean interrupted;
+    }
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "STEMCraft-Web-Timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WebRequestLimiter(HttpHandler handler, int maxConcurrent, int queueLimit, long timeoutMillis) {
+        this.handler = handler;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.queueLimit = Math.max(0, queueLimit);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Number of requests waiting for a slot.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!acquire()) {
+            reject(exchange, "Server busy");
+            return;
+        }
+
+        Request request = new Request();
+        Thread thread = Thread.currentThread();
+        ScheduledFuture<?> timeout = timeoutMillis <= 0 ? null
+                : watchdog.schedule(() -> expire(exchange, thread, request), timeoutMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            handler.handle(exchange);
+        } finally {
+            boolean interrupted;
+            synchronized (request) {
+                request.finished = true;
+                interrupted = request.interrupted;
+            }
+            if (timeout != null) timeout.cancel(false);
+            // don't carry the timeout's interrupt over to the next request on this thread
+            if (interrupted) Thread.interrupted();
+            permits.release();
+        }
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) return true;
+
+        if (queued.incrementAndGet() > queueLimit) {
+            queued.decrementAndGet();
+            return false;
+        }
+
+        try {
+            if (timeoutMillis <= 0) {
+                permits.acquire();
+                return true;
+            }
+            return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private static void expire(HttpExchange exchange, Thread thread, Request request) {
+        synchronized (request) {
+            if (request.finished || exchange.getResponseCode() != -1) return;
+
+            try {
+                reject(exchange, "Request timed out");
+            } catch (IOException | RuntimeException e) {
+                return; // the handler started its response meanwhile
+            }
+            request.interrupted = true;
+            thread.interrupt();
+        }
+        exchange.close();
+    }
+
+    private static void reject(HttpExchange exchange, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(503, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.web;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes request paths to handlers through a trie with one level per path segment.
+ * <p>
+ * A {name} segment matches any one segment and captures it. Static segments are tried before
+ * captures, backing off to the capture if the static branch does not match. A prefix route also
+ * matches every path below it, and the deepest one wins when no exact route matches.
+ * <p>
+ * Each trie node is reached by only one path from the root, so a lookup visits a node at most
+ * once. Without captures it costs the length of the path. With captures, backing off can visit
+ * every node on the branches the path could match, so the worst case is bounded by the size of
+ * the trie rather than the length of the path.
+ * <p>
+ * Routes may be added while requests are being matched.
+ */
+public class WebRouter<T> {
+    public static final String ANY_METHOD = "*";
+
+    private final Node<T> root = new Node<>();
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        final Map<String, T> handlers = new ConcurrentHashMap<>();
+        final Map<String, T> prefixHandlers = new ConcurrentHashMap<>();
+        volatile Node<T> parameter;
+        volatile String parameterName;
+    }
+
+    /**
+     * A matched route. The handler is null if exact routes exist for the path but none for the
+     * method, and allowed lists the methods that do. A prefix route for another method does not
+     * count, so the path can still be served by something else.
+     */
+    public record Match<T>(T handler, Map<String, String> parameters, Set<String> allowed) { }
+
+    public synchronized void add(String method, String pattern, T handler, boolean prefix) {
+        Node<T> node = root;
+        for (String segment : segments(pattern)) {
+            if (segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.parameter == null) {
+                    node.parameterName = name;
+                    node.parameter = new Node<>();
+                } else if (!node.parameterName.equals(name)) {
+                    throw new IllegalArgumentException("Route " + pattern + " names {" + name + "} where another route uses {" + node.parameterName + "}");
+                }
+                node = node.parameter;
+            } else {
+                node = node.children.computeIfAbsent(segment, key -> new Node<>());
+            }
+        }
+
+        (prefix ? node.prefixHandlers : node.handlers).put(method.toUpperCase(Locale.ROOT), handler);
+    }
+
+    /**
+     * Returns the route for the request, or null if no route matches the path.
+     */
+    public Match<T> match(String method, String path) {
+        method = method.toUpperCase(Locale.ROOT);
+        List<String> segments = segments(path);
+        Set<String> allowed = new TreeSet<>();
+        Deque<String[]> captured = new ArrayDeque<>();
+
+        T handler = search(root, segments, 0, method, captured, allowed);
+        if (handler == null && allowed.isEmpty()) return null;
+
+        Map<String, String> parameters = new LinkedHashMap<>();
+        captured.descendingIterator().forEachRemaining(pair -> parameters.put(pair[0], pair[1]));
+        return new Match<>(handler, parameters, handler == null ? allowed : Set.of());
+    }
+
+    private T search(Node<T> node, List<String> segments, int index, String method, Deque<String[]> captured, Set<String> allowed) {
+        if (index == segments.size()) {
+            // only routes for exactly this path report the methods they allow
+            T handler = forMethod(node.handlers, method, allowed);
+            if (handler != null) return handler;
+        } else {
+            String segment = segments.get(index);
+
+            Node<T> child = node.children.get(segment);
+            if (child != null) {
+                T handler = search(child, segments, index + 1, method, captured, allowed);
+                if (handler != null) return handler;
+            }
+
+            Node<T> parameter = node.parameter;
+            if (parameter != null) {
+                captured.push(new String[]{node.parameterName, segment});
+                T handler = search(parameter, segments, index + 1, method, captured, allowed);
+                if (handler != null) return handler;
+                captured.pop();
+            }
+        }
+
+        // nothing deeper matched, fall back to a prefix route here
+        return forMethod(node.prefixHandlers, method, null);
+    }
+
+    private static <T> T forMethod(Map<String, T> handlers, String method, Set<String> allowed) {
+        if (handlers.isEmpty()) return null;
+
+        T handler = handlers.get(method);
+        if (handler == null && method.equals("HEAD")) handler = handlers.get("GET");
+        if (handler == null) handler = handlers.get(ANY_METHOD);
+        if (handler == null && allowed != null) allowed.addAll(handlers.keySet());
+        return handler;
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) segments.add(segment);
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldfiles;
+
+import dev.stemcraft.api.services.world.WorldFileTask;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and result of a background world folder operation.
+ */
+public class FileTask implements WorldFileTask {
+    private final String worldName;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    public FileTask(String worldName) {
+        this.worldName = worldName;
+    }
+
+    @Override
+    public String getWorldName() {
+        return worldName;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return total.get();
+    }
+
+    @Override
+    public long getCompletedBytes() {
+        return completed.get();
+    }
+
+    @Override
+    public CompletableFuture<Void> future() {
+        return future;
+    }
+
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    void addTotal(long bytes) {
+        total.addAndGet(bytes);
+    }
+
+    void addCompleted(long bytes) {
+        completed.addAndGet(bytes);
+    }
+}
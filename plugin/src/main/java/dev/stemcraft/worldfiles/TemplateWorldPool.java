@@ -0,0 +1,275 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldfiles;
+
+import dev.stemcraft.STEMCraft;
+import dev.stemcraft.api.services.WorldService;
+import dev.stemcraft.api.services.world.WorldPool;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps copies of a template world named pool_&lt;n&gt;_&lt;template&gt; ready to hand out. The name
+ * keeps the template's suffix so nether and end templates load in the right environment.
+ * <p>
+ * Copies are duplicated on the world file pool and loaded on the main thread, and all of the
+ * pool's state is only touched on the main thread.
+ */
+public class TemplateWorldPool implements WorldPool {
+    private static final long RETRY_TICKS = 30 * 20L;
+
+    private final STEMCraft plugin;
+    private final WorldService worlds;
+    private final String template;
+    private final int size;
+    private final boolean preload;
+
+    private final Deque<String> ready = new ArrayDeque<>();
+    private final Deque<World> loaded = new ArrayDeque<>();
+    private final Deque<CompletableFuture<World>> waiting = new ArrayDeque<>();
+    private final Set<String> leased = new HashSet<>();
+    private int copying = 0;
+    private int counter = 0;
+    private boolean retrying = false;
+    private boolean closed = false;
+
+    public TemplateWorldPool(STEMCraft plugin, WorldService worlds, String template, int size, boolean preload) {
+        this.plugin = plugin;
+        this.worlds = worlds;
+        this.template = template;
+        this.size = Math.max(1, size);
+        this.preload = preload;
+    }
+
+    /**
+     * Delete copies left behind by an earlier run, then start filling the pool.
+     */
+    public void start() {
+        for (String name : worlds.listWorlds()) {
+            if (isInstanceName(name) && !worlds.isWorldLoaded(name)) {
+                delete(name);
+            }
+        }
+        refill();
+    }
+
+    @Override
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getReady() {
+        return ready.size() + loaded.size();
+    }
+
+    @Override
+    public boolean isPreloaded() {
+        return preload;
+    }
+
+    @Override
+    public CompletableFuture<World> acquire() {
+        CompletableFuture<World> future = new CompletableFuture<>();
+        runSync(() -> {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("World pool for " + template + " is closed"));
+                return;
+            }
+
+            if (!loaded.isEmpty()) {
+                World world = loaded.poll();
+                leased.add(world.getName());
+                future.complete(world);
+            } else if (!ready.isEmpty()) {
+                handOut(ready.poll(), future);
+            } else {
+                waiting.add(future);
+            }
+            refill();
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> release(World world) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        runSync(() -> {
+            String name = world.getName();
+            if (!leased.remove(name)) {
+                future.completeExceptionally(new IllegalArgumentException("World " + name + " is not leased from the " + template + " pool"));
+                return;
+            }
+
+            World main = Bukkit.getWorlds().getFirst();
+            for (Player player : world.getPlayers()) {
+                player.teleport(main.getSpawnLocation());
+            }
+
+            if (!worlds.unloadWorld(name, false)) {
+                future.completeExceptionally(new IllegalStateException("Could not unload world " + name));
+                return;
+            }
+            delete(name).whenComplete((v, ex) -> {
+                if (ex != null) future.completeExceptionally(ex);
+                else future.complete(null);
+            });
+        });
+        return future;
+    }
+
+    @Override
+    public boolean isLeased(World world) {
+        return leased.contains(world.getName());
+    }
+
+    @Override
+    public void close() {
+        runSync(() -> {
+            shutdown();
+
+            for (World world : loaded) {
+                worlds.unloadWorld(world.getName(), false);
+                ready.add(world.getName());
+            }
+            loaded.clear();
+            ready.forEach(this::delete);
+            ready.clear();
+        });
+    }
+
+    /**
+     * Stop refilling without touching the copies, for server shutdown. They are deleted by
+     * {@link #start()} next time.
+     */
+    public void shutdown() {
+        closed = true;
+        IllegalStateException error = new IllegalStateException("World pool for " + template + " is closed");
+        waiting.forEach(future -> future.completeExceptionally(error));
+        waiting.clear();
+    }
+
+    private void refill() {
+        if (closed || retrying) return;
+
+        // waiting callers count against the pool so a burst of requests is not starved by preloading
+        while (getReady() + copying < size + waiting.size()) {
+            String name = nextName();
+            copying++;
+            worlds.duplicateWorldAsync(template, name).future().whenComplete((v, ex) -> runSync(() -> {
+                copying--;
+                if (ex != null) {
+                    failed(name, ex);
+                } else {
+                    copied(name);
+                }
+            }));
+        }
+    }
+
+    private void copied(String name) {
+        if (closed) {
+            delete(name);
+        } else if (!waiting.isEmpty()) {
+            handOut(name, waiting.poll());
+        } else if (preload) {
+            World world = worlds.loadWorld(name);
+            if (world != null) {
+                loaded.add(world);
+            } else {
+                ready.add(name);
+            }
+        } else {
+            ready.add(name);
+        }
+        refill();
+    }
+
+    private void failed(String name, Throwable ex) {
+        Throwable cause = WorldCopier.unwrap(ex);
+        plugin.warn("Could not copy world {template} for its pool", cause, "template", template);
+
+        waiting.forEach(future -> future.completeExceptionally(cause));
+        waiting.clear();
+
+        // back off rather than retrying every copy straight away while the template is unavailable
+        if (!retrying && !closed) {
+            retrying = true;
+            Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                retrying = false;
+                refill();
+            }, RETRY_TICKS);
+        }
+    }
+
+    private void handOut(String name, CompletableFuture<World> future) {
+        World world = worlds.loadWorld(name);
+        if (world == null) {
+            future.completeExceptionally(new IllegalStateException("Could not load world " + name));
+            delete(name);
+            return;
+        }
+        leased.add(name);
+        future.complete(world);
+    }
+
+    private CompletableFuture<Void> delete(String name) {
+        CompletableFuture<Void> future = worlds.deleteWorldAsync(name).future();
+        future.whenComplete((v, ex) -> {
+            if (ex != null) {
+                plugin.warn("Could not delete pooled world {name}", WorldCopier.unwrap(ex), "name", name);
+            }
+        });
+        return future;
+    }
+
+    private String nextName() {
+        String name;
+        do {
+            name = "pool_" + (++counter) + "_" + template;
+        } while (leased.contains(name) || Files.exists(worlds.getWorldFolder(name)));
+        return name;
+    }
+
+    private boolean isInstanceName(String name) {
+        if (!name.startsWith("pool_") || !name.endsWith("_" + template)) return false;
+
+        String number = name.substring(5, name.length() - template.length() - 1);
+        return !number.isEmpty() && number.chars().allMatch(Character::isDigit);
+    }
+
+    private void runSync(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Copies world folders on a shared pool, one file per task with the largest first, so region
+ * files are copied in parallel.
+ * <p>
+ * {@link Files#copy} uses the kernel copy path and clones extents on filesystems that support
+ * it. Files matching the hardlink patterns are linked instead, falling back to a copy if the
+ * filesystem cannot; only list files the server never rewrites in place, as a link shares
+ * every later write with the source.
+ */
+public class WorldCopier {
+    private static final Set<String> SKIPPED = Set.of("uid.dat", "session.lock");
+
+    private final Executor executor;
+    private final List<PathMatcher> hardlinks;
+
+    private record Entry(Path source, Path target, long size, boolean link) { }
+
+    public WorldCopier(Executor executor, List<String> hardlinkPatterns) {
+        this.executor = executor;
+        this.hardlinks = hardlinkPatterns.stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .toList();
+    }
+
+    /**
+     * Copy the source folder to the target, which must not exist. A failed or cancelled copy
+     * removes what it wrote.
+     */
+    public FileTask copy(String name, Path source, Path target) {
+        FileTask task = new FileTask(name);
+        if (!Files.isDirectory(source)) {
+            task.future().completeExceptionally(new NoSuchFileException(source.toString(), null, "Source world not found"));
+            return task;
+        }
+        if (Files.exists(target)) {
+            task.future().completeExceptionally(new FileAlreadyExistsException(target.toString()));
+            return task;
+        }
+
+        CompletableFuture.supplyAsync(() -> scan(source, target, task), executor)
+                .thenCompose(entries -> CompletableFuture.allOf(entries.stream()
+                        .map(entry -> CompletableFuture.runAsync(() -> copyFile(entry, task), executor))
+                        .toArray(CompletableFuture[]::new)))
+                .whenComplete((result, ex) -> {
+                    Throwable cause = ex == null ? null : unwrap(ex);
+                    if (cause != null || task.isCancelled()) {
+                        try {
+                            deleteTree(target);
+                        } catch (IOException e) {
+                            if (cause != null) cause.addSuppressed(e);
+                        }
+                    }
+
+                    if (cause != null) {
+                        task.future().completeExceptionally(cause);
+                    } else {
+                        task.future().complete(null);
+                    }
+                });
+
+        return task;
+    }
+
+    /**
+     * Create the target folders and list the files to copy, largest first.
+     */
+    private List<Entry> scan(Path source, Path target, FileTask task) {
+        try {
+            List<Entry> entries = new ArrayList<>();
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(target.resolve(source.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isRegularFile() || SKIPPED.contains(file.getFileName().toString())) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    Path relative = source.relativize(file);
+                    boolean link = hardlinks.stream().anyMatch(matcher -> matcher.matches(relative));
+                    entries.add(new Entry(file, target.resolve(relative), attrs.size(), link));
+                    task.addTotal(attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            entries.sort(Comparator.comparingLong(Entry::size).reversed());
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void copyFile(Entry entry, FileTask task) {
+        if (task.isCancelled()) return;
+
+        try {
+            if (entry.link()) {
+                try {
+                    Files.createLink(entry.target(), entry.source());
+                    task.addCompleted(entry.size());
+                    return;
+                } catch (IOException | UnsupportedOperationException e) {
+                    // different filesystem or no hardlink support, copy instead
+                }
+            }
+
+            Files.copy(entry.source(), entry.target(), StandardCopyOption.COPY_ATTRIBUTES);
+            task.addCompleted(entry.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the IOException behind a failed stage, if there is one.
+     */
+    public static Throwable unwrap(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof UncheckedIOException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    /**
+     * Delete a folder and everything in it, failing on the first file that cannot be removed.
+     */
+    public static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) return;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.deleteIfExists(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) throw exc;
+                Files.deleteIfExists(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldfiles;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Deletes world folders by first renaming them into a trash folder beside the worlds, which
+ * frees the name at once, then removing the files on a single low priority thread.
+ * <p>
+ * Files that cannot be removed are retried a few times with a growing delay. Anything still
+ * left stays in the trash and is picked up again by {@link #reclaimAll()} on the next start.
+ */
+public class WorldReclaimer {
+    private static final long[] RETRY_DELAYS_MS = {1000, 5000, 15000};
+
+    private final Path trash;
+    private ExecutorService executor;
+
+    public WorldReclaimer(Path trash) {
+        this.trash = trash;
+    }
+
+    /**
+     * Move the world folder into the trash and reclaim it in the background. Fails straight away
+     * if the folder cannot be moved, leaving it in place.
+     */
+    public FileTask delete(String name, Path root) {
+        FileTask task = new FileTask(name);
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            task.future().complete(null);
+            return task;
+        }
+
+        Path trashed;
+        try {
+            Files.createDirectories(trash);
+            trashed = trash.resolve(name + "-" + System.currentTimeMillis());
+            for (int i = 1; Files.exists(trashed, LinkOption.NOFOLLOW_LINKS); i++) {
+                trashed = trash.resolve(name + "-" + System.currentTimeMillis() + "-" + i);
+            }
+            Files.move(root, trashed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            task.future().completeExceptionally(e);
+            return task;
+        }
+
+        submit(trashed, task);
+        return task;
+    }
+
+    /**
+     * Reclaim everything left in the trash, such as folders a restart interrupted.
+     */
+    public List<FileTask> reclaimAll() {
+        List<FileTask> tasks = new ArrayList<>();
+        if (!Files.isDirectory(trash)) return tasks;
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(trash)) {
+            for (Path entry : entries) {
+                FileTask task = new FileTask(entry.getFileName().toString());
+                submit(entry, task);
+                tasks.add(task);
+            }
+        } catch (IOException e) {
+            FileTask task = new FileTask(trash.getFileName().toString());
+            task.future().completeExceptionally(e);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Stop reclaiming after the current file. Unfinished folders stay in the trash.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submit(Path trashed, FileTask task) {
+        try {
+            executor().execute(() -> reclaim(trashed, task));
+        } catch (RejectedExecutionException e) {
+            task.future().completeExceptionally(e);
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "STEMCraft-World-Reclaim");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private void reclaim(Path root, FileTask task) {
+        try {
+            List<Path> files = new ArrayList<>();
+            List<Path> dirs = new ArrayList<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    files.add(file);
+                    task.addTotal(attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    dirs.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            List<Path> remainingFiles = files;
+            List<Path> remainingDirs = dirs;
+            IOException failure;
+            for (int attempt = 0; ; attempt++) {
+                failure = null;
+                remainingFiles = deleteAll(remainingFiles, task);
+                if (!remainingFiles.isEmpty()) {
+                    failure = new IOException("Could not delete " + remainingFiles.size() + " files in " + root);
+                } else {
+                    remainingDirs = deleteAll(remainingDirs, null);
+                    if (remainingDirs.isEmpty()) break;
+                    failure = new IOException("Could not delete " + remainingDirs.size() + " folders in " + root);
+                }
+
+                if (attempt >= RETRY_DELAYS_MS.length || task.isCancelled()) break;
+                Thread.sleep(RETRY_DELAYS_MS[attempt]);
+            }
+
+            if (failure != null) {
+                task.future().completeExceptionally(failure);
+            } else {
+                task.future().complete(null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future().cancel(false);
+        } catch (IOException e) {
+            task.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Delete the paths in order, returning the ones that failed.
+     */
+    private static List<Path> deleteAll(List<Path> paths, FileTask task) throws InterruptedException {
+        List<Path> failed = new ArrayList<>();
+        for (Path path : paths) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (task != null && task.isCancelled()) {
+                failed.add(path);
+                continue;
+            }
+
+            try {
+                long size = task != null && Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) ? Files.size(path) : 0;
+                Files.deleteIfExists(path);
+                if (task != null) task.addCompleted(size);
+            } catch (IOException e) {
+                failed.add(path);
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldfiles;
+
+import dev.stemcraft.api.services.world.WorldSnapshot;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Content addressed snapshots of world folders.
+ * <p>
+ * Every file is stored once under objects/ by its SHA-256, and each snapshot is a manifest in
+ * worlds/&lt;world&gt;/ listing the path, hash, size and modified time of its files. A file whose
+ * size and modified time match the world's previous snapshot reuses that hash without being
+ * read, so only region files the server has written since are copied. Files written while
+ * they were being copied are copied again.
+ * <p>
+ * Store operations run one at a time so pruning never removes an object a snapshot or restore
+ * in progress relies on. The files within an operation are handled in parallel.
+ */
+public class WorldSnapshots {
+    private static final String EXTENSION = ".snapshot";
+    private static final String HEADER = "# STEMCraft world snapshot";
+    private static final Set<String> SKIPPED = Set.of("uid.dat", "session.lock");
+    private static final int ATTEMPTS = 3;
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path objects;
+    private final Path manifests;
+    private final Executor executor;
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    private record Entry(String path, String hash, long size, long modified) { }
+
+    private record Manifest(WorldSnapshot snapshot, List<Entry> entries) { }
+
+    public WorldSnapshots(Path root, Executor executor) {
+        this.objects = root.resolve("objects");
+        this.manifests = root.resolve("worlds");
+        this.executor = executor;
+    }
+
+    /**
+     * Snapshot the world folder. The caller is responsible for the world not being saved to
+     * while this runs, such as by saving it and turning off autosave.
+     */
+    public CompletableFuture<WorldSnapshot> snapshot(String name, Path source) {
+        if (!isValidName(name)) return CompletableFuture.failedFuture(invalidName(name));
+
+        return enqueue(() -> CompletableFuture.supplyAsync(() -> scan(source), executor).thenCompose(files -> {
+            Map<String, Entry> previous = latest(name).map(manifest -> {
+                Map<String, Entry> map = new HashMap<>();
+                manifest.entries().forEach(entry -> map.put(entry.path(), entry));
+                return map;
+            }).orElse(Map.of());
+
+            AtomicLong copied = new AtomicLong();
+            List<CompletableFuture<Entry>> stored = files.stream()
+                    .map(file -> CompletableFuture.supplyAsync(() -> store(source, file, previous.get(file), copied), executor))
+                    .toList();
+
+            return CompletableFuture.allOf(stored.toArray(CompletableFuture[]::new)).thenApplyAsync(v -> {
+                List<Entry> entries = stored.stream().map(CompletableFuture::join).toList();
+                return writeManifest(name, entries, copied.get());
+            }, executor);
+        }));
+    }
+
+    /**
+     * Returns the world's snapshots, oldest first.
+     */
+    public List<WorldSnapshot> list(String name) {
+        List<WorldSnapshot> snapshots = new ArrayList<>();
+        for (Path file : manifestFiles(name)) {
+            try {
+                snapshots.add(readManifest(name, file).snapshot());
+            } catch (IOException e) {
+                // unreadable manifests are skipped, pruning removes them in time
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Write a snapshot out as a new world folder, which must not exist. A failed restore removes
+     * what it wrote.
+     */
+    public FileTask restore(String name, String id, Path target, String targetName) {
+        FileTask task = new FileTask(targetName);
+        if (!isValidName(name)) {
+            task.future().completeExceptionally(invalidName(name));
+            return task;
+        }
+
+        enqueue(() -> CompletableFuture.supplyAsync(() -> {
+            if (Files.exists(target)) throw new UncheckedIOException(new FileAlreadyExistsException(target.toString()));
+            try {
+                Path file = manifestFiles(name).stream()
+                        .filter(path -> path.getFileName().toString().equals(id + EXTENSION))
+                        .findFirst()
+                        .orElseThrow(() -> new NoSuchFileException(id));
+                Manifest manifest = readManifest(name, file);
+                for (Entry entry : manifest.entries()) {
+                    task.addTotal(entry.size());
+                }
+                return manifest.entries();
+            } catch (NoSuchFileException e) {
+                throw new IllegalArgumentException("No snapshot " + id + " of world " + name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor).thenCompose(entries -> CompletableFuture.allOf(entries.stream()
+                .map(entry -> CompletableFuture.runAsync(() -> {
+                    if (task.isCancelled()) return;
+                    try {
+                        Path out = target.resolve(entry.path());
+                        Files.createDirectories(out.getParent());
+                        Files.copy(object(entry.hash()), out);
+                        Files.setLastModifiedTime(out, FileTime.fromMillis(entry.modified()));
+                        task.addCompleted(entry.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new))).whenComplete((v, ex) -> {
+            Throwable cause = ex == null ? null : WorldCopier.unwrap(ex);
+            if ((cause != null && !(cause instanceof FileAlreadyExistsException)) || task.isCancelled()) {
+                try {
+                    WorldCopier.deleteTree(target);
+                } catch (IOException e) {
+                    if (cause != null) cause.addSuppressed(e);
+                }
+            }
+
+            if (cause != null) {
+                task.future().completeExceptionally(cause);
+            } else {
+                task.future().complete(null);
+            }
+        }));
+        return task;
+    }
+
+    /**
+     * Keep only the newest snapshots of the world, then delete the objects no snapshot of any
+     * world refers to.
+     */
+    public CompletableFuture<Integer> prune(String name, int keep) {
+        if (!isValidName(name)) return CompletableFuture.failedFuture(invalidName(name));
+
+        return enqueue(() -> CompletableFuture.supplyAsync(() -> {
+            try {
+                List<Path> files = manifestFiles(name);
+                for (int i = 0; i < files.size() - keep; i++) {
+                    Files.deleteIfExists(files.get(i));
+                }
+                return collectGarbage();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor));
+    }
+
+    private synchronized <T> CompletableFuture<T> enqueue(Supplier<CompletableFuture<T>> operation) {
+        CompletableFuture<T> next = tail.handle((v, ex) -> null).thenCompose(v -> operation.get());
+        tail = next;
+        return next;
+    }
+
+    /**
+     * List the world's files as paths relative to its folder, using / on every platform.
+     */
+    private List<String> scan(Path source) {
+        if (!Files.isDirectory(source)) {
+            throw new UncheckedIOException(new NoSuchFileException(source.toString(), null, "World not found"));
+        }
+
+        try {
+            List<String> files = new ArrayList<>();
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !SKIPPED.contains(file.getFileName().toString())) {
+                        files.add(source.relativize(file).toString().replace('\\', '/'));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return files;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Entry store(Path source, String path, Entry previous, AtomicLong copied) {
+        Path file = source.resolve(path);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                BasicFileAttributes before = Files.readAttributes(file, BasicFileAttributes.class);
+                long size = before.size();
+                long modified = before.lastModifiedTime().toMillis();
+
+                if (previous != null && previous.size() == size && previous.modified() == modified
+                        && Files.exists(object(previous.hash()))) {
+                    return previous;
+                }
+
+                Path temp = Files.createTempFile(Files.createDirectories(objects), "copy", ".tmp");
+                try {
+                    String hash = copyHashed(file, temp);
+
+                    BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (after.size() != size || after.lastModifiedTime().toMillis() != modified) {
+                        if (attempt < ATTEMPTS) continue; // written while copying
+                        throw new IOException("File " + path + " kept changing while it was copied");
+                    }
+
+                    Path target = object(hash);
+                    if (!Files.exists(target)) {
+                        Files.createDirectories(target.getParent());
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                        copied.addAndGet(size);
+                    }
+                    return new Entry(path, hash, size, modified);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String copyHashed(Path source, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path object(String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private WorldSnapshot writeManifest(String name, List<Entry> entries, long copied) {
+        Instant created = Instant.now();
+        Path folder = manifestFolder(name);
+        try {
+            Files.createDirectories(folder);
+
+            String id = ID_FORMAT.format(created);
+            for (int i = 1; Files.exists(folder.resolve(id + EXTENSION)); i++) {
+                id = ID_FORMAT.format(created) + "-" + i;
+            }
+
+            Path temp = folder.resolve(id + EXTENSION + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(HEADER + "\n");
+                out.write("created " + created.toEpochMilli() + "\n");
+                out.write("copied " + copied + "\n");
+                for (Entry entry : entries) {
+                    out.write(entry.hash() + " " + entry.size() + " " + entry.modified() + " " + entry.path() + "\n");
+                }
+            }
+            Files.move(temp, folder.resolve(id + EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+
+            long bytes = entries.stream().mapToLong(Entry::size).sum();
+            return new WorldSnapshot(name, id, created, entries.size(), bytes, copied);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Manifest readManifest(String name, Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String id = fileName.substring(0, fileName.length() - EXTENSION.length());
+
+        Instant created = Instant.EPOCH;
+        long copied = 0;
+        long bytes = 0;
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split(" ", 4);
+            try {
+                if (parts[0].equals("created")) {
+                    created = Instant.ofEpochMilli(Long.parseLong(parts[1]));
+                } else if (parts[0].equals("copied")) {
+                    copied = Long.parseLong(parts[1]);
+                } else if (parts.length == 4) {
+                    Entry entry = new Entry(parts[3], parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    entries.add(entry);
+                    bytes += entry.size();
+                } else {
+                    throw new IOException("Malformed snapshot line in " + file + ": " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed snapshot line in " + file + ": " + line, e);
+            }
+        }
+
+        return new Manifest(new WorldSnapshot(name, id, created, entries.size(), bytes, copied), entries);
+    }
+
+    private Optional<Manifest> latest(String name) {
+        List<Path> files = manifestFiles(name);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return Optional.of(readManifest(name, files.get(i)));
+            } catch (IOException e) {
+                // fall back to an older snapshot
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The folder holding the world's manifests. The name must be a plain world folder name so it
+     * cannot point outside the store.
+     */
+    private Path manifestFolder(String name) {
+        if (!isValidName(name)) throw invalidName(name);
+        return manifests.resolve(name);
+    }
+
+    private static boolean isValidName(String name) {
+        return name != null && !name.isBlank() && !name.startsWith(".") && name.indexOf('/') < 0 && name.indexOf('\\') < 0;
+    }
+
+    private static IllegalArgumentException invalidName(String name) {
+        return new IllegalArgumentException("Invalid world name " + name);
+    }
+
+    /**
+     * The world's manifests, oldest first. Ids sort by time.
+     */
+    private List<Path> manifestFiles(String name) {
+        Path folder = manifestFolder(name);
+        if (!Files.isDirectory(folder)) return List.of();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + EXTENSION)) {
+            List<Path> files = new ArrayList<>();
+            stream.forEach(files::add);
+            files.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            return files;
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private int collectGarbage() throws IOException {
+        if (!Files.isDirectory(objects)) return 0;
+
+        Set<String> referenced = new HashSet<>();
+        if (Files.isDirectory(manifests)) {
+            try (DirectoryStream<Path> worlds = Files.newDirectoryStream(manifests)) {
+                for (Path world : worlds) {
+                    String name = world.getFileName().toString();
+                    for (Path file : manifestFiles(name)) {
+                        // a manifest that cannot be read keeps everything, rather than risk its objects
+                        readManifest(name, file).entries().forEach(entry -> referenced.add(entry.hash()));
+                    }
+                }
+            }
+        }
+
+        int[] removed = {0};
+        Files.walkFileTree(objects, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!referenced.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                    removed[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return removed[0];
+    }
+}
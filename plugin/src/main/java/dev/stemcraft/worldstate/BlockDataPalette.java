@@ -0,0 +1,58 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns {@link BlockData} so captured blocks can store a small id instead of their own copy.
+ * A capture usually touches a few hundred distinct block states however many blocks it holds.
+ */
+public final class BlockDataPalette {
+    private final List<BlockData> entries = new ArrayList<>();
+    private final Map<BlockData, Integer> ids = new HashMap<>();
+
+    /**
+     * Get the id for the block data, adding it to the palette if needed.
+     */
+    public int id(BlockData data) {
+        Integer id = ids.get(data);
+        if (id == null) {
+            id = entries.size();
+            data = data.clone();
+            entries.add(data);
+            ids.put(data, id);
+        }
+        return id;
+    }
+
+    public BlockData get(int id) {
+        return entries.get(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
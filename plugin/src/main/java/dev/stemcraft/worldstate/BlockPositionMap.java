@@ -0,0 +1,203 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import dev.stemcraft.api.utils.SCPosition;
+
+import java.util.Arrays;
+
+/**
+ * Map from a packed block position to an int, using open addressing over primitive arrays.
+ * <p>
+ * Positions are packed into one long with {@link SCPosition#pack}. Values must be zero or
+ * more; a slot holding a negative value is empty, so no key has to be reserved as a marker.
+ * Memory use is 12 bytes per slot and the table is kept at most two thirds full.
+ */
+public final class BlockPositionMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+    private int resizeAt;
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long position, int value);
+    }
+
+    public BlockPositionMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public BlockPositionMap(int expected) {
+        allocate(tableSize(expected));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long position) {
+        return values[find(position)] >= 0;
+    }
+
+    /**
+     * Returns the value for the position, or -1 if there is none.
+     */
+    public int get(long position) {
+        return values[find(position)];
+    }
+
+    /**
+     * Set the value for the position if it has none. Returns false if it already had one.
+     */
+    public boolean putIfAbsent(long position, int value) {
+        if (value < 0) throw new IllegalArgumentException("Value must not be negative: " + value);
+
+        int slot = find(position);
+        if (values[slot] >= 0) return false;
+
+        keys[slot] = position;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Set the value for the position, replacing any it had.
+     */
+    public void put(long position, int value) {
+        if (value < 0) throw new IllegalArgumentException("Value must not be negative: " + value);
+
+        int slot = find(position);
+        if (values[slot] >= 0) {
+            values[slot] = value;
+            return;
+        }
+
+        keys[slot] = position;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove the position. Returns its value, or -1 if there was none.
+     */
+    public int remove(long position) {
+        int slot = find(position);
+        int value = values[slot];
+        if (value < 0) return -1;
+
+        values[slot] = -1;
+        size--;
+
+        // shift back any entries in the probe run that would no longer be found
+        int gap = slot;
+        for (int i = (gap + 1) & mask; values[i] >= 0; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = -1;
+                gap = i;
+            }
+        }
+
+        return value;
+    }
+
+    public void forEach(Consumer consumer) {
+        long[] keys = this.keys;
+        int[] values = this.values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] >= 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns an independent copy of the map.
+     */
+    public BlockPositionMap copy() {
+        BlockPositionMap copy = new BlockPositionMap();
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        copy.mask = mask;
+        copy.resizeAt = resizeAt;
+        return copy;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    private int find(long position) {
+        int slot = hash(position) & mask;
+        while (values[slot] >= 0 && keys[slot] != position) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long position) {
+        long h = position * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSize(int expected) {
+        long needed = Math.max(MIN_CAPACITY, (long) expected * 3 / 2 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, -1);
+        mask = capacity - 1;
+        resizeAt = capacity / 3 * 2;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] >= 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
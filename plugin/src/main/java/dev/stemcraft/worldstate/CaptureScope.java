@@ -0,0 +1,173 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import dev.stemcraft.api.utils.SCPosition;
+import dev.stemcraft.api.utils.SCRegion;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The part of a world being captured: the whole world, or the union of some regions.
+ * <p>
+ * Every chunk a region touches is looked up in a table built up front. Chunks whose columns are
+ * all inside a cuboid or polygon region only need a y range check; only chunks on a region's
+ * edge fall back to the exact region test, and positions in any other chunk are rejected by
+ * the single lookup.
+ * <p>
+ * The table is built without testing columns one by one. A cuboid chunk is classified from its
+ * corners. For a polygon, the chunks its edges pass through are on the boundary, and every run
+ * of chunks between them in a row is wholly inside or outside, so one column decides the run.
+ */
+public final class CaptureScope {
+    public static final CaptureScope WORLD = new CaptureScope(List.of());
+
+    private static final int BOUNDARY = 0;
+
+    private final List<SCRegion> regions;
+    private final BlockPositionMap chunks = new BlockPositionMap();
+    private final int[] minY;
+    private final int[] maxY;
+
+    private CaptureScope(List<SCRegion> regions) {
+        this.regions = List.copyOf(regions);
+        this.minY = new int[regions.size()];
+        this.maxY = new int[regions.size()];
+
+        for (int i = 0; i < regions.size(); i++) {
+            SCRegion region = regions.get(i);
+            minY[i] = region.getMinY();
+            maxY[i] = region.getMaxY();
+
+            if (region.isCuboid()) {
+                addCuboid(region, i);
+            } else if (region.isPolygon()) {
+                addPolygon(region, i);
+            } else {
+                for (int cx = region.getMinX() >> 4; cx <= region.getMaxX() >> 4; cx++) {
+                    for (int cz = region.getMinZ() >> 4; cz <= region.getMaxZ() >> 4; cz++) {
+                        mark(cx, cz, false, i);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addCuboid(SCRegion region, int index) {
+        for (int cx = region.getMinX() >> 4; cx <= region.getMaxX() >> 4; cx++) {
+            boolean insideX = cx << 4 >= region.getMinX() && (cx << 4) + 15 <= region.getMaxX();
+            for (int cz = region.getMinZ() >> 4; cz <= region.getMaxZ() >> 4; cz++) {
+                boolean insideZ = cz << 4 >= region.getMinZ() && (cz << 4) + 15 <= region.getMaxZ();
+                mark(cx, cz, insideX && insideZ, index);
+            }
+        }
+    }
+
+    private void addPolygon(SCRegion region, int index) {
+        int minCx = region.getMinX() >> 4;
+        int minCz = region.getMinZ() >> 4;
+        int width = (region.getMaxX() >> 4) - minCx + 1;
+        int depth = (region.getMaxZ() >> 4) - minCz + 1;
+        BitSet edges = new BitSet(width * depth);
+
+        // a block of margin around each edge covers columns the region test counts as on it
+        List<int[]> points = region.getPolygonPoints();
+        for (int p = 0; p < points.size(); p++) {
+            int[] a = points.get(p);
+            int[] b = points.get((p + 1) % points.size());
+
+            int fromCz = Math.max(minCz, (Math.min(a[1], b[1]) - 1) >> 4);
+            int toCz = Math.min(minCz + depth - 1, (Math.max(a[1], b[1]) + 1) >> 4);
+            for (int cz = fromCz; cz <= toCz; cz++) {
+                // the part of the edge within this row of chunks
+                double fromZ = Math.max(Math.min(a[1], b[1]), (cz << 4) - 1);
+                double toZ = Math.min(Math.max(a[1], b[1]), (cz << 4) + 16);
+                double x1 = a[1] == b[1] ? a[0] : a[0] + (b[0] - a[0]) * (fromZ - a[1]) / (b[1] - a[1]);
+                double x2 = a[1] == b[1] ? b[0] : a[0] + (b[0] - a[0]) * (toZ - a[1]) / (b[1] - a[1]);
+
+                int fromCx = Math.max(minCx, ((int) Math.floor(Math.min(x1, x2)) - 1) >> 4);
+                int toCx = Math.min(minCx + width - 1, ((int) Math.ceil(Math.max(x1, x2)) + 1) >> 4);
+                for (int cx = fromCx; cx <= toCx; cx++) {
+                    edges.set((cz - minCz) * width + cx - minCx);
+                }
+            }
+        }
+
+        for (int cz = minCz; cz < minCz + depth; cz++) {
+            Boolean run = null;
+            for (int cx = minCx; cx < minCx + width; cx++) {
+                if (edges.get((cz - minCz) * width + cx - minCx)) {
+                    mark(cx, cz, false, index);
+                    run = null;
+                    continue;
+                }
+
+                if (run == null) {
+                    run = region.contains((cx << 4) + 8, minY[index], (cz << 4) + 8);
+                }
+                if (run) {
+                    mark(cx, cz, true, index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a chunk the region covers, wholly or only in part.
+     */
+    private void mark(int cx, int cz, boolean whole, int index) {
+        long key = SCPosition.pack(cx, 0, cz);
+        int current = chunks.get(key);
+        if (whole && current <= BOUNDARY) {
+            chunks.put(key, index + 1);
+        } else if (current < 0) {
+            chunks.put(key, BOUNDARY);
+        }
+    }
+
+    /**
+     * Returns a scope covering the regions, or the whole world if there are none.
+     */
+    public static CaptureScope of(List<SCRegion> regions) {
+        return regions == null || regions.isEmpty() ? WORLD : new CaptureScope(regions);
+    }
+
+    public boolean isWholeWorld() {
+        return regions.isEmpty();
+    }
+
+    public List<SCRegion> getRegions() {
+        return regions;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        if (regions.isEmpty()) return true;
+
+        int zone = chunks.get(SCPosition.pack(x >> 4, 0, z >> 4));
+        if (zone < 0) return false;
+        if (zone > BOUNDARY && y >= minY[zone - 1] && y <= maxY[zone - 1]) return true;
+
+        for (SCRegion region : regions) {
+            if (region.contains(x, y, z)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import dev.stemcraft.api.utils.SCPosition;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Campfire;
+import org.bukkit.block.Container;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * The original state of every block and the entities changed in a world since capture started.
+ * <p>
+ * Capture is split into layers, one per checkpoint. Each layer holds the state at its checkpoint
+ * of the blocks first changed after it, so a checkpoint costs only the blocks changed since the
+ * previous one. Rolling back to a checkpoint restores every position in that layer and the ones
+ * above it to its value in the lowest of them, then drops the layers above.
+ * <p>
+ * Blocks are kept in a {@link BlockPositionMap} from packed position to a {@link BlockDataPalette}
+ * id shared by all layers, so each captured block costs around 20 bytes instead of a string key,
+ * map node and copy of its block data. Container and campfire contents are rare and kept in a
+ * separate map.
+ * <p>
+ * State is saved with {@link RecordedWorldStateFile} from a {@link #snapshot}.
+ */
+public class RecordedWorldState {
+    public static final String START = "start";
+
+    private final BlockDataPalette palette = new BlockDataPalette();
+    private final List<Layer> layers = new ArrayList<>(List.of(new Layer(START)));
+    private volatile boolean dirty = true;
+
+    static final class Layer {
+        final String name;
+        final BlockPositionMap blocks = new BlockPositionMap();
+        final Map<Long, ItemStack[]> inventories = new HashMap<>();
+        final Set<UUID> spawnedEntities = new HashSet<>();
+
+        Layer(String name) {
+            this.name = name;
+        }
+
+        boolean isEmpty() {
+            return blocks.isEmpty() && spawnedEntities.isEmpty();
+        }
+    }
+
+    private Layer top() {
+        return layers.getLast();
+    }
+
+    public void recordEntity(Entity e) {
+        if (top().spawnedEntities.add(e.getUniqueId())) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Record the block state if its position has not already been captured since the last
+     * checkpoint.
+     */
+    public boolean recordBlock(BlockState state) {
+        Layer layer = top();
+        long position = SCPosition.pack(state.getX(), state.getY(), state.getZ());
+        if (!layer.blocks.putIfAbsent(position, palette.id(state.getBlockData()))) {
+            return false;
+        }
+
+        ItemStack[] contents = snapshotInventory(state);
+        if (contents != null) {
+            layer.inventories.put(position, contents);
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Returns true if the position has been captured since the last checkpoint, in which case
+     * recording it again does nothing.
+     */
+    public boolean isRecorded(int x, int y, int z) {
+        return top().blocks.containsKey(SCPosition.pack(x, y, z));
+    }
+
+    /**
+     * Start a new checkpoint. Returns false if a checkpoint already has the name.
+     */
+    public boolean checkpoint(String name) {
+        if (getCheckpointIndex(name) >= 0) return false;
+
+        layers.add(new Layer(name));
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Returns the checkpoint names, oldest first, starting with {@link #START}.
+     */
+    public List<String> getCheckpoints() {
+        return layers.stream().map(layer -> layer.name).toList();
+    }
+
+    public int getCheckpointIndex(String name) {
+        for (int i = 0; i < layers.size(); i++) {
+            if (layers.get(i).name.equalsIgnoreCase(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of captured blocks across all checkpoints. A position changed after
+     * several checkpoints counts once for each.
+     */
+    public int getBlockCount() {
+        int count = 0;
+        for (Layer layer : layers) {
+            count += layer.blocks.size();
+        }
+        return count;
+    }
+
+    public int getPaletteSize() {
+        return palette.size();
+    }
+
+    public boolean isEmpty() {
+        return layers.size() == 1 && layers.getFirst().isEmpty();
+    }
+
+    /**
+     * Returns true if the state changed since the last {@link #snapshot}.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    /**
+     * Copy the state for saving off the main thread, and clear the dirty flag. Inventories are
+     * serialized here as item stacks are not safe to read from another thread.
+     */
+    public Snapshot snapshot(boolean capturing, List<String> regions) {
+        List<String> paletteData = new ArrayList<>(palette.size());
+        for (int id = 0; id < palette.size(); id++) {
+            paletteData.add(palette.get(id).getAsString());
+        }
+
+        List<LayerSnapshot> layerData = new ArrayList<>(layers.size());
+        for (Layer layer : layers) {
+            Map<Long, byte[][]> inventoryData = new HashMap<>();
+            layer.inventories.forEach((position, contents) -> {
+                byte[][] items = new byte[contents.length][];
+                for (int i = 0; i < contents.length; i++) {
+                    ItemStack item = contents[i];
+                    items[i] = item == null || item.getType().isAir() ? null : item.serializeAsBytes();
+                }
+                inventoryData.put(position, items);
+            });
+            layerData.add(new LayerSnapshot(layer.name, layer.blocks.copy(), inventoryData,
+                    new ArrayList<>(layer.spawnedEntities)));
+        }
+
+        dirty = false;
+        return new Snapshot(paletteData, layerData, capturing, List.copyOf(regions));
+    }
+
+    /**
+     * A copy of a {@link RecordedWorldState} that can be written from any thread, with whether
+     * it is capturing and the serialized regions it is limited to.
+     */
+    public record Snapshot(List<String> palette, List<LayerSnapshot> layers, boolean capturing, List<String> regions) {
+        public boolean isEmpty() {
+            return layers.size() == 1 && layers.getFirst().blocks().isEmpty() && layers.getFirst().entities().isEmpty();
+        }
+    }
+
+    public record LayerSnapshot(String name, BlockPositionMap blocks, Map<Long, byte[][]> inventories,
+                                List<UUID> entities) { }
+
+    /**
+     * Remove the entities spawned since the checkpoint at the index.
+     */
+    public void removeEntities(World world, int checkpoint) {
+        for (Layer layer : layers.subList(checkpoint, layers.size())) {
+            for (UUID id : layer.spawnedEntities) {
+                Entity e = world.getEntity(id);
+                if (e != null && !e.isDead()) {
+                    e.remove();
+                }
+            }
+            if (!layer.spawnedEntities.isEmpty()) {
+                layer.spawnedEntities.clear();
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the positions changed since the checkpoint at the index grouped by chunk, one array
+     * per chunk. Chunks are ordered by x then z so a rollback sweeps across the area instead of
+     * jumping around it, and the positions in each are sorted.
+     */
+    public List<long[]> groupByChunk(int checkpoint) {
+        if (checkpoint == layers.size() - 1) {
+            return groupByChunk(layers.getLast().blocks);
+        }
+
+        BlockPositionMap positions = new BlockPositionMap(layers.get(checkpoint).blocks.size());
+        for (Layer layer : layers.subList(checkpoint, layers.size())) {
+            layer.blocks.forEach((position, id) -> positions.putIfAbsent(position, 0));
+        }
+        return groupByChunk(positions);
+    }
+
+    static List<long[]> groupByChunk(BlockPositionMap blocks) {
+        long[] order = new long[blocks.size()];
+        int[] count = {0};
+        blocks.forEach((position, id) -> order[count[0]++] = chunkOrder(position));
+        Arrays.sort(order);
+
+        List<long[]> chunks = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= order.length; i++) {
+            if (i == order.length || (order[i] >>> 20) != (order[start] >>> 20)) {
+                long[] positions = new long[i - start];
+                for (int j = start; j < i; j++) {
+                    positions[j - start] = fromChunkOrder(order[j]);
+                }
+                chunks.add(positions);
+                start = i;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Restore the block at the position to its state at the checkpoint at the index, and forget
+     * it in that checkpoint and those after it. The chunk must be loaded. Returns false if the
+     * position was not changed since the checkpoint.
+     */
+    public boolean restoreBlock(World world, long position, int checkpoint) {
+        int id = -1;
+        ItemStack[] contents = null;
+        for (Layer layer : layers.subList(checkpoint, layers.size())) {
+            int layerId = layer.blocks.remove(position);
+            ItemStack[] layerContents = layer.inventories.remove(position);
+            if (id < 0 && layerId >= 0) {
+                id = layerId;
+                contents = layerContents;
+            }
+        }
+        if (id < 0) return false;
+        dirty = true;
+
+        restore(world.getBlockAt(SCPosition.unpackX(position), SCPosition.unpackY(position),
+                SCPosition.unpackZ(position)), palette.get(id), contents, false);
+        return true;
+    }
+
+    /**
+     * Drop the checkpoints after the one at the index, once it has been rolled back to.
+     */
+    public void truncate(int checkpoint) {
+        if (layers.size() > checkpoint + 1) {
+            layers.subList(checkpoint + 1, layers.size()).clear();
+            dirty = true;
+        }
+    }
+
+    /**
+     * Add a checkpoint read from a saved capture, which the following blocks and entities are
+     * added to.
+     */
+    void putCheckpoint(String name) {
+        layers.add(new Layer(name));
+    }
+
+    /**
+     * Add a block read from a saved capture. The palette id must come from {@link #paletteId}.
+     */
+    void putBlock(long position, int id, ItemStack[] inventoryContents) {
+        Layer layer = top();
+        layer.blocks.put(position, id);
+        if (inventoryContents != null) {
+            layer.inventories.put(position, inventoryContents);
+        } else {
+            layer.inventories.remove(position);
+        }
+    }
+
+    int paletteId(BlockData data) {
+        return palette.id(data);
+    }
+
+    void putEntity(UUID id) {
+        top().spawnedEntities.add(id);
+    }
+
+    /**
+     * Rearrange a packed position so sorting groups it by chunk: chunk x (22 bits, signed), chunk
+     * z (22 bits, sign flipped so it sorts as unsigned), then x and z within the chunk and y.
+     */
+    private static long chunkOrder(long position) {
+        int x = SCPosition.unpackX(position);
+        int z = SCPosition.unpackZ(position);
+        return ((long) (x >> 4) << 42) | ((long) (((z >> 4) ^ 0x200000) & 0x3FFFFF) << 20)
+                | ((x & 15) << 16) | ((z & 15) << 12) | (position & 0xFFF);
+    }
+
+    private static long fromChunkOrder(long order) {
+        int chunkX = (int) (order >> 42);
+        int chunkZ = ((int) ((order >>> 20) & 0x3FFFFF) ^ 0x200000) << 10 >> 10;
+        int x = (chunkX << 4) | (int) ((order >>> 16) & 15);
+        int z = (chunkZ << 4) | (int) ((order >>> 12) & 15);
+        return SCPosition.pack(x, 0, z) | (order & 0xFFF);
+    }
+
+    public static int chunkX(long position) {
+        return SCPosition.unpackX(position) >> 4;
+    }
+
+    public static int chunkZ(long position) {
+        return SCPosition.unpackZ(position) >> 4;
+    }
+
+    private static ItemStack[] snapshotInventory(BlockState state) {
+        // the state is already a copy, so its snapshot inventory can be kept as is
+        if (state instanceof Container container) {
+            return container.getSnapshotInventory().getContents();
+        }
+
+        if (state instanceof Campfire campfire) {
+            int size = campfire.getSize();
+            ItemStack[] contents = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                ItemStack item = campfire.getItem(i);
+                contents[i] = (item == null ? null : item.clone());
+            }
+            return contents;
+        }
+
+        return null;
+    }
+
+    static void restore(Block block, BlockData data, ItemStack[] inventoryContents, boolean applyPhysics) {
+        Material savedType = data.getMaterial();
+
+        // Just restore what we recorded
+        block.setType(savedType, applyPhysics);
+        block.setBlockData(data, applyPhysics);
+
+        if (inventoryContents != null) {
+            BlockState state = block.getState();
+            if (state instanceof Container container) {
+                int invSize = container.getInventory().getSize();
+                ItemStack[] toApply = new ItemStack[invSize];
+                int copyLen = Math.min(invSize, inventoryContents.length);
+                System.arraycopy(inventoryContents, 0, toApply, 0, copyLen);
+
+                container.getInventory().clear();
+                container.getInventory().setContents(toApply);
+            } else if (state instanceof Campfire campfire) {
+                int size = campfire.getSize();
+                for (int i = 0; i < size; i++) {
+                    ItemStack item = (i < inventoryContents.length ? inventoryContents[i] : null);
+                    campfire.setItem(i, item == null ? null : item.clone());
+                }
+                campfire.update(true, applyPhysics);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import dev.stemcraft.api.utils.SCPosition;
+import org.bukkit.Bukkit;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary file format for a {@link RecordedWorldState}.
+ * <p>
+ * After a short header the file is one deflate stream holding the regions capture is limited
+ * to, the block data palette and then each checkpoint: its name, spawned entities and blocks grouped by chunk. Each block is its position within
+ * the chunk as a byte plus a varint y, a varint palette id and its inventory, if any, as
+ * serialized item stacks. A typical block takes 3 to 4 bytes before compression. The file
+ * is read as a stream, so loading never holds more than the capture itself in memory.
+ */
+public final class RecordedWorldStateFile {
+    public static final String EXTENSION = ".capture";
+
+    static final int MAGIC = 0x53435743; // SCWC
+    static final byte VERSION = 3;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private RecordedWorldStateFile() { }
+
+    /**
+     * A capture read from disk, whether it was capturing when saved and the serialized regions
+     * it was limited to.
+     */
+    public record Contents(RecordedWorldState state, boolean capturing, List<String> regions) { }
+
+    /**
+     * Write the snapshot to a temporary file and move it over the target once it is on disk.
+     */
+    public static void write(RecordedWorldState.Snapshot snapshot, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        Deflater deflater = new Deflater();
+
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            DataOutputStream header = new DataOutputStream(fos);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeBoolean(snapshot.capturing());
+
+            DeflaterOutputStream deflated = new DeflaterOutputStream(fos, deflater, BUFFER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, BUFFER_SIZE));
+
+            writeVarInt(out, snapshot.regions().size());
+            for (String region : snapshot.regions()) {
+                out.writeUTF(region);
+            }
+
+            writeVarInt(out, snapshot.palette().size());
+            for (String data : snapshot.palette()) {
+                out.writeUTF(data);
+            }
+
+            writeVarInt(out, snapshot.layers().size());
+            for (RecordedWorldState.LayerSnapshot layer : snapshot.layers()) {
+                out.writeUTF(layer.name());
+                writeLayer(out, layer);
+            }
+
+            out.flush();
+            deflated.finish();
+            fos.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        } finally {
+            deflater.end();
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeLayer(DataOutputStream out, RecordedWorldState.LayerSnapshot layer) throws IOException {
+        writeVarInt(out, layer.entities().size());
+        for (UUID id : layer.entities()) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+
+        BlockPositionMap blocks = layer.blocks();
+        List<long[]> chunks = RecordedWorldState.groupByChunk(blocks);
+        writeVarInt(out, chunks.size());
+        for (long[] positions : chunks) {
+            writeVarInt(out, zigzag(RecordedWorldState.chunkX(positions[0])));
+            writeVarInt(out, zigzag(RecordedWorldState.chunkZ(positions[0])));
+            writeVarInt(out, positions.length);
+
+            for (long position : positions) {
+                out.writeByte(((SCPosition.unpackX(position) & 15) << 4) | (SCPosition.unpackZ(position) & 15));
+                writeVarInt(out, zigzag(SCPosition.unpackY(position)));
+                writeVarInt(out, blocks.get(position));
+
+                byte[][] items = layer.inventories().get(position);
+                if (items == null) {
+                    writeVarInt(out, 0);
+                    continue;
+                }
+
+                writeVarInt(out, items.length + 1);
+                for (byte[] item : items) {
+                    if (item == null) {
+                        writeVarInt(out, 0);
+                    } else {
+                        writeVarInt(out, item.length);
+                        out.write(item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a capture. Must be called on the main thread, as block data and item stacks are
+     * created as they are read.
+     */
+    public static Contents read(File file) throws IOException {
+        try (InputStream fis = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            DataInputStream header = new DataInputStream(fis);
+            if (header.readInt() != MAGIC) {
+                throw new IOException("Not a world capture: " + file);
+            }
+            byte version = header.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported world capture version " + version + ": " + file);
+            }
+            boolean capturing = header.readBoolean();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(fis), BUFFER_SIZE));
+            RecordedWorldState state = new RecordedWorldState();
+
+            List<String> regions = new ArrayList<>();
+            if (version >= 3) {
+                int count = readVarInt(in);
+                for (int i = 0; i < count; i++) {
+                    regions.add(in.readUTF());
+                }
+            }
+
+            // palette entries no longer valid on this server restore as air
+            int[] palette = new int[readVarInt(in)];
+            for (int i = 0; i < palette.length; i++) {
+                String data = in.readUTF();
+                BlockData blockData;
+                try {
+                    blockData = Bukkit.createBlockData(data);
+                } catch (IllegalArgumentException e) {
+                    blockData = Bukkit.createBlockData("minecraft:air");
+                }
+                palette[i] = state.paletteId(blockData);
+            }
+
+            // version 1 has a single unnamed layer
+            int layers = version == 1 ? 1 : readVarInt(in);
+            for (int layer = 0; layer < layers; layer++) {
+                String name = version == 1 ? RecordedWorldState.START : in.readUTF();
+                if (layer > 0) {
+                    state.putCheckpoint(name);
+                }
+                readLayer(in, state, palette);
+            }
+
+            state.markClean();
+            return new Contents(state, capturing, regions);
+        }
+    }
+
+    private static void readLayer(DataInputStream in, RecordedWorldState state, int[] palette) throws IOException {
+        int entities = readVarInt(in);
+        for (int i = 0; i < entities; i++) {
+            state.putEntity(new UUID(in.readLong(), in.readLong()));
+        }
+
+        int chunks = readVarInt(in);
+        for (int c = 0; c < chunks; c++) {
+            int baseX = unzigzag(readVarInt(in)) << 4;
+            int baseZ = unzigzag(readVarInt(in)) << 4;
+            int count = readVarInt(in);
+
+            for (int b = 0; b < count; b++) {
+                int local = in.readUnsignedByte();
+                int y = unzigzag(readVarInt(in));
+                int id = palette[readVarInt(in)];
+
+                ItemStack[] contents = null;
+                int slots = readVarInt(in) - 1;
+                if (slots >= 0) {
+                    contents = new ItemStack[slots];
+                    for (int i = 0; i < slots; i++) {
+                        int length = readVarInt(in);
+                        if (length > 0) {
+                            byte[] item = new byte[length];
+                            in.readFully(item);
+                            contents[i] = ItemStack.deserializeBytes(item);
+                        }
+                    }
+                }
+
+                state.putBlock(SCPosition.pack(baseX | (local >> 4), y, baseZ | (local & 15)), id, contents);
+            }
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
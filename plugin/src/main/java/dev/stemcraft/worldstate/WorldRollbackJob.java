@@ -0,0 +1,182 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.worldstate;
+
+import dev.stemcraft.api.services.world.WorldRollback;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Restores a {@link RecordedWorldState} a chunk at a time on the main thread.
+ * <p>
+ * The next few chunks are loaded asynchronously and held with a plugin chunk ticket while the
+ * current one is restored, and each tick stops once its time budget is spent. Restored blocks
+ * are removed from the state, so a cancelled rollback leaves only what is still to do. Once
+ * every block is restored the checkpoints after the target are dropped.
+ */
+public class WorldRollbackJob implements WorldRollback {
+    private final Plugin plugin;
+    private final World world;
+    private final RecordedWorldState state;
+    private final int checkpoint;
+    private final String checkpointName;
+    private final long budgetNanos;
+    private final int preloadChunks;
+
+    private final List<long[]> batches;
+    private final Map<Integer, CompletableFuture<Chunk>> loading = new HashMap<>();
+    private final CompletableFuture<Integer> future = new CompletableFuture<>();
+    private final int total;
+
+    private volatile int restored = 0;
+    private int batchIndex = 0;
+    private int blockIndex = 0;
+    private BukkitTask task;
+
+    public WorldRollbackJob(Plugin plugin, World world, RecordedWorldState state, int checkpoint,
+                            long budgetMillis, int preloadChunks) {
+        this.plugin = plugin;
+        this.world = world;
+        this.state = state;
+        this.checkpoint = checkpoint;
+        this.checkpointName = state.getCheckpoints().get(checkpoint);
+        this.budgetNanos = Math.max(1, budgetMillis) * 1_000_000L;
+        this.preloadChunks = Math.max(1, preloadChunks);
+        this.batches = state.groupByChunk(checkpoint);
+
+        int count = 0;
+        for (long[] positions : batches) {
+            count += positions.length;
+        }
+        this.total = count;
+    }
+
+    /**
+     * Remove spawned entities and start restoring blocks from the next tick. Must be called on
+     * the main thread.
+     */
+    public void start() {
+        state.removeEntities(world, checkpoint);
+        preload();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public String getCheckpoint() {
+        return checkpointName;
+    }
+
+    @Override
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public int getRestored() {
+        return restored;
+    }
+
+    @Override
+    public boolean cancel() {
+        return future.cancel(false);
+    }
+
+    @Override
+    public CompletableFuture<Integer> future() {
+        return future;
+    }
+
+    private void tick() {
+        if (future.isDone()) {
+            finish(); // cancelled
+            return;
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        try {
+            while (batchIndex < batches.size()) {
+                CompletableFuture<Chunk> chunk = loading.get(batchIndex);
+                if (!chunk.isDone()) return; // still loading, try again next tick
+                chunk.join();
+
+                long[] positions = batches.get(batchIndex);
+                while (blockIndex < positions.length) {
+                    if (state.restoreBlock(world, positions[blockIndex++], checkpoint)) {
+                        restored++;
+                    }
+                    if (System.nanoTime() >= deadline) return;
+                }
+
+                release(loading.remove(batchIndex));
+                batchIndex++;
+                blockIndex = 0;
+                preload();
+            }
+        } catch (RuntimeException e) {
+            finish();
+            future.completeExceptionally(e);
+            return;
+        }
+
+        finish();
+        state.truncate(checkpoint);
+        future.complete(restored);
+    }
+
+    private void preload() {
+        int end = Math.min(batches.size(), batchIndex + preloadChunks);
+        for (int i = batchIndex; i < end; i++) {
+            if (loading.containsKey(i)) continue;
+
+            long position = batches.get(i)[0];
+            loading.put(i, world.getChunkAtAsync(RecordedWorldState.chunkX(position), RecordedWorldState.chunkZ(position))
+                    .thenApply(chunk -> {
+                        chunk.addPluginChunkTicket(plugin);
+                        return chunk;
+                    }));
+        }
+    }
+
+    private void release(CompletableFuture<Chunk> chunk) {
+        chunk.thenAccept(c -> c.removePluginChunkTicket(plugin));
+    }
+
+    private void finish() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        loading.values().forEach(this::release);
+        loading.clear();
+    }
+}
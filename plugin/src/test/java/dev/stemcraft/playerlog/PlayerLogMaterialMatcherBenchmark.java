@@ -0,0 +1,102 @@
+/*
+ * STEMCraft - Minecraft Plugin
+ * Copyright (C) 2025 James Collins
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * @author STEMMechanics
+ * @link https://github.com/STEMMechanics/STEMCraft
+ */
+package dev.stemcraft.playerlog;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Times the tracked block check on block place events: the regex loop over the default
+ * {@code player_logs.blocks.place} patterns it replaced, against a {@link PlayerLogMaterialMatcher}
+ * lookup. Run with {@code ./gradlew :plugin:benchmarkMaterialMatcher}.
+ * <p>
+ * This is a plain timing loop with warmup rounds rather than a JMH harness, so treat the figures
+ * as an order of magnitude.
+ */
+public final class PlayerLogMaterialMatcherBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int EVENTS = 2_000_000;
+
+    // mostly everyday blocks, with a few tracked ones
+    private static final Material[] EVENT_MIX = {
+            Material.STONE, Material.COBBLESTONE, Material.DIRT, Material.OAK_PLANKS, Material.GRASS_BLOCK,
+            Material.NETHERRACK, Material.DEEPSLATE, Material.SAND, Material.GRAVEL, Material.TORCH,
+            Material.WHITE_WOOL, Material.POLISHED_BLACKSTONE_BRICK_STAIRS, Material.CHEST, Material.DIAMOND_ORE
+    };
+
+    private PlayerLogMaterialMatcherBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        List<Pattern> patterns = loadDefaultPatterns();
+        PlayerLogMaterialMatcher matcher = PlayerLogMaterialMatcher.compile(patterns);
+        System.out.println(patterns.size() + " patterns, " + EVENT_MIX.length + " materials in the event mix");
+
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++) {
+                if (matchesAny(patterns, EVENT_MIX[i % EVENT_MIX.length].name())) sink++;
+            }
+            long regex = System.nanoTime() - start;
+
+            // the lookup is far cheaper, so run more of it for a readable time
+            start = System.nanoTime();
+            for (int i = 0; i < EVENTS * 50; i++) {
+                if (matcher.matches(EVENT_MIX[i % EVENT_MIX.length])) sink++;
+            }
+            long lookup = System.nanoTime() - start;
+
+            System.out.printf("round %d: regex loop %.1f ns/event, array lookup %.2f ns/event%n",
+                    round, regex / (double) EVENTS, lookup / (double) (EVENTS * 50L));
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read the place patterns from the bundled config.yml, compiled the way the plugin does.
+     */
+    private static List<Pattern> loadDefaultPatterns() throws Exception {
+        try (Reader reader = new InputStreamReader(Objects.requireNonNull(
+                PlayerLogMaterialMatcherBenchmark.class.getResourceAsStream("/config.yml")), StandardCharsets.UTF_8)) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(reader);
+
+            List<Pattern> patterns = new ArrayList<>();
+            for (String raw : config.getStringList("player_logs.blocks.place")) {
+                patterns.add(Pattern.compile(raw, Pattern.CASE_INSENSITIVE));
+            }
+            return patterns;
+        }
+    }
+}